@@ -2,7 +2,7 @@
 
 import { useState, useEffect, useRef } from 'react'
 import { X } from 'lucide-react'
-import { fetchMonthHistory, getMonthHistory, refreshMonthHistory } from '@/lib/api'
+import { fetchMonthHistory, getArchiveMonths, getMonthHistory, refreshMonthHistory } from '@/lib/api'
 import { ChessDailyRating } from '@/types/chess'
 import type { UseCachedChessDataReturn } from './hooks/useCachedChessData'
 
@@ -147,9 +147,20 @@ export default function HistoricalDataFetcher({
       abortControllerRef.current = new AbortController()
 
       try {
-        const months = generateMonthList(fetchStartDate, fetchEndDate)
+        let months = generateMonthList(fetchStartDate, fetchEndDate)
         const allRatings: ChessDailyRating[] = []
 
+        // Months fetched from Chess.com: skip the ones without games (keep all if the list is unavailable)
+        if (dataSource !== 'database') {
+          try {
+            const archiveMonths = new Set(await getArchiveMonths(username))
+            months = months.filter(({ year, month }) =>
+              archiveMonths.has(`${year}-${month.toString().padStart(2, '0')}`))
+          } catch (error: any) {
+            console.warn(`Archive months unavailable, fetching every month: ${error.message}`)
+          }
+        }
+
         for (let i = 0; i < months.length; i++) {
           // Check if cancelled
           if (abortControllerRef.current?.signal.aborted) {
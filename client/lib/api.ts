@@ -21,11 +21,30 @@ export const getChessStats = async (username: string) => {
   }
 }
 
+// Refreshes run as background jobs on the server: poll the job until it finishes and return its result
+const JOB_POLL_INTERVAL_MS = 1000
+const JOB_TIMEOUT_MS = 60000
+
+const waitForJob = async (job: any) => {
+  const deadline = Date.now() + JOB_TIMEOUT_MS
+  while (job.status !== 'SUCCEEDED') {
+    if (job.status === 'FAILED') {
+      throw new Error(job.error || 'Refresh failed')
+    }
+    if (Date.now() > deadline) {
+      throw new Error('Timed out waiting for refresh')
+    }
+    await new Promise((resolve) => setTimeout(resolve, JOB_POLL_INTERVAL_MS))
+    job = (await apiClient.get(`/api/jobs/${job.id}`)).data
+  }
+  return job.result
+}
+
 // Force refresh stats from Chess.com API
 export const refreshChessStats = async (username: string) => {
   try {
     const response = await apiClient.post(`/api/chess/stats/refresh`, null, { params: { username } })
-    return response.data
+    return await waitForJob(response.data)
   } catch (error: any) {
     throw new Error(error.response?.data?.error || 'Failed to refresh chess statistics')
   }
@@ -56,14 +75,23 @@ export const fetchMonthHistory = async (username: string, year: number, month: n
   }
 }
 
+// Months with games on Chess.com for a user ("YYYY-MM", oldest first), so empty months can be skipped
+export const getArchiveMonths = async (username: string): Promise<string[]> => {
+  try {
+    const response = await apiClient.get(`/api/chess/history/months`, { params: { username } })
+    return response.data.months
+  } catch (error: any) {
+    throw new Error(error.response?.data?.error || 'Failed to fetch archive months')
+  }
+}
+
 // Fetch and update rating history from Chess.com API to database (stored users)
 export const refreshMonthHistory = async (username: string, year: number, month: number) => {
   try {
     const response = await apiClient.post(`/api/chess/history/refresh`, null, {
       params: { username, year, month },
-      timeout: 30000, // 30 second timeout for API fetch
     })
-    return response.data
+    return await waitForJob(response.data)
   } catch (error: any) {
     throw new Error(error.response?.data?.error || 'Failed to refresh month history from Chess.com')
   }
@@ -116,7 +144,22 @@ export const getGuestStats = async (username: string) => {
 // Load stored user snapshot from static JSON file
 export const loadStoredUserSnapshot = async () => {
   try {
-    const response = await fetch('/data/stored-user-snapshot.json')
+    // Published snapshots come with a small manifest naming the current content-hashed file, which
+    // can be cached forever; fall back to the fixed name for hand-updated snapshots
+    let path = '/data/stored-user-snapshot.json'
+    try {
+      const manifest = await fetch('/data/snapshot-manifest.json', { cache: 'no-cache' })
+      if (manifest.ok) {
+        const { files } = await manifest.json()
+        if (files?.json?.path) {
+          path = `/data/${files.json.path}`
+        }
+      }
+    } catch {
+      // No manifest, use the fixed name
+    }
+
+    const response = await fetch(path)
     if (!response.ok) {
       throw new Error('Snapshot file not found')
     }
@@ -0,0 +1,128 @@
+import com.bdvitz.codingstats.service.OutboundRequestScheduler;
+import com.bdvitz.codingstats.service.RequestLane;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interactive wait for an outbound slot while refresh and background callers keep every slot busy,
+ * with a first-come-first-served semaphore and with OutboundRequestScheduler at its default settings.
+ * Run through lane-scheduler-benchmark.sh, which puts the server classes on the classpath.
+ *
+ * Each bulk caller loops acquire, hold for CALL_MS, release; one interactive call starts every
+ * INTERACTIVE_EVERY_MS and its wait for a slot is recorded.
+ */
+public class LaneSchedulerBenchmark {
+
+    private static final int PERMITS = 4;
+    private static final int BACKGROUND_CALLERS = 40;
+    private static final int REFRESH_CALLERS = 10;
+    private static final long CALL_MS = 200;
+    private static final long INTERACTIVE_EVERY_MS = 150;
+
+    interface Slots {
+        void acquire(RequestLane lane) throws InterruptedException;
+
+        void release(RequestLane lane);
+    }
+
+    public static void main(String[] args) throws Exception {
+        long durationMs = args.length > 0 ? Long.parseLong(args[0]) : 15000;
+
+        Semaphore semaphore = new Semaphore(PERMITS, true);
+        run("fifo semaphore", durationMs, new Slots() {
+            public void acquire(RequestLane lane) throws InterruptedException {
+                semaphore.acquire();
+            }
+
+            public void release(RequestLane lane) {
+                semaphore.release();
+            }
+        });
+
+        // Same values as application.properties
+        OutboundRequestScheduler scheduler = new OutboundRequestScheduler(
+                PERMITS, 2000, 5000, 8, 3, 3, 30000, 1, 2, 120000);
+        run("priority lanes", durationMs, new Slots() {
+            public void acquire(RequestLane lane) throws InterruptedException {
+                if (!scheduler.acquire(lane)) {
+                    throw new IllegalStateException(lane + " timed out");
+                }
+            }
+
+            public void release(RequestLane lane) {
+                scheduler.release(lane);
+            }
+        });
+    }
+
+    private static void run(String name, long durationMs, Slots slots) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs);
+        List<Thread> bulk = new ArrayList<>();
+        for (int i = 0; i < BACKGROUND_CALLERS + REFRESH_CALLERS; i++) {
+            RequestLane lane = i < REFRESH_CALLERS ? RequestLane.REFRESH : RequestLane.BACKGROUND;
+            bulk.add(Thread.ofPlatform().daemon().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        slots.acquire(lane);
+                    } catch (InterruptedException | IllegalStateException e) {
+                        continue;
+                    }
+                    try {
+                        Thread.sleep(CALL_MS);
+                    } catch (InterruptedException e) {
+                        return;
+                    } finally {
+                        slots.release(lane);
+                    }
+                }
+            }));
+        }
+
+        List<Long> waits = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> interactive = new ArrayList<>();
+        // Let the bulk callers fill the slots and queue up first
+        Thread.sleep(500);
+        while (System.nanoTime() < deadline) {
+            interactive.add(Thread.ofPlatform().start(() -> {
+                long start = System.nanoTime();
+                try {
+                    slots.acquire(RequestLane.INTERACTIVE);
+                } catch (InterruptedException | IllegalStateException e) {
+                    return;
+                }
+                waits.add(System.nanoTime() - start);
+                try {
+                    Thread.sleep(CALL_MS);
+                } catch (InterruptedException ignored) {
+                } finally {
+                    slots.release(RequestLane.INTERACTIVE);
+                }
+            }));
+            Thread.sleep(INTERACTIVE_EVERY_MS);
+        }
+        for (Thread thread : interactive) {
+            thread.join();
+        }
+        for (Thread thread : bulk) {
+            thread.join();
+        }
+
+        List<Long> sorted = new ArrayList<>(waits);
+        Collections.sort(sorted);
+        System.out.printf("%-16s interactive calls %4d  wait p50 %6d ms  p99 %6d ms  max %6d ms%n",
+                name, sorted.size(), percentile(sorted, 0.50), percentile(sorted, 0.99),
+                sorted.isEmpty() ? 0 : TimeUnit.NANOSECONDS.toMillis(sorted.get(sorted.size() - 1)));
+    }
+
+    private static long percentile(List<Long> sorted, double fraction) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.size() * fraction) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted.get(Math.max(0, index)));
+    }
+}
@@ -0,0 +1,98 @@
+import com.bdvitz.codingstats.model.ChessDailyRating;
+import com.bdvitz.codingstats.model.ChessStat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialize time, encoded size and parse time of the snapshot payload as JSON, CBOR and Smile.
+ * Run through payload-format-benchmark.sh, which puts the server classes and Jackson on the classpath.
+ *
+ * Mappers are configured like the server's (ISO dates, non_null) and the payload is built from the
+ * same model types /api/snapshot/generate returns.
+ */
+public class PayloadFormatBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        File snapshotFile = new File(args.length > 0 ? args[0] : "../client/public/data/stored-user-snapshot.json");
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        ObjectMapper json = mapper(new JsonFactory());
+        Map<String, Object> snapshot = loadSnapshot(json, snapshotFile);
+
+        System.out.printf("Payload: %s (%d daily ratings), %d iterations%n",
+                snapshotFile.getName(), ((List<?>) snapshot.get("historicalData")).size(), iterations);
+        System.out.printf("%-6s %10s %10s %14s %12s%n", "Format", "Bytes", "Gzipped", "Serialize(us)", "Parse(us)");
+
+        run("JSON", json, snapshot, iterations);
+        run("CBOR", mapper(new CBORFactory()), snapshot, iterations);
+        run("Smile", mapper(new SmileFactory()), snapshot, iterations);
+    }
+
+    private static ObjectMapper mapper(JsonFactory factory) {
+        return new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    private static Map<String, Object> loadSnapshot(ObjectMapper json, File file) throws Exception {
+        JsonNode root = json.readTree(file);
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("currentStats", json.treeToValue(root.get("currentStats"), ChessStat.class));
+        snapshot.put("historicalData", json.readerFor(new TypeReference<List<ChessDailyRating>>() {})
+                .readValue(root.get("historicalData")));
+        snapshot.put("generatedAt", root.path("generatedAt").asLong());
+        snapshot.put("username", root.path("username").asText());
+        return snapshot;
+    }
+
+    private static void run(String name, ObjectMapper mapper, Map<String, Object> snapshot, int iterations) throws Exception {
+        byte[] encoded = mapper.writeValueAsBytes(snapshot);
+        TypeReference<Map<String, Object>> generic = new TypeReference<>() {};
+
+        // Warm up both paths before timing
+        for (int i = 0; i < iterations; i++) {
+            mapper.writeValueAsBytes(snapshot);
+            mapper.readValue(encoded, generic);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            mapper.writeValueAsBytes(snapshot);
+        }
+        double serializeMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+
+        // Clients decode into generic maps/lists, not the server's model classes
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            mapper.readValue(encoded, generic);
+        }
+        double parseMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+
+        System.out.printf("%-6s %10d %10d %14.1f %12.1f%n", name, encoded.length, gzippedSize(encoded), serializeMicros, parseMicros);
+    }
+
+    private static int gzippedSize(byte[] bytes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,83 @@
+#!/bin/bash
+
+# Compare platform-thread and virtual-thread execution under the same memory limit.
+# Starts the server jar once per mode, fires CONCURRENCY simultaneous requests at
+# ENDPOINT, and reports completed/failed requests, wall time, the peak number of
+# established connections on the server port, and peak RSS.
+#
+# Usage: ./concurrency-benchmark.sh [concurrency] [endpoint]
+# Example: ./concurrency-benchmark.sh 200 "/api/chess/stats/guest-current?username=hikaru"
+#
+# Requires a built jar (cd server && mvn clean package -DskipTests) and a reachable database.
+
+CONCURRENCY="${1:-100}"
+ENDPOINT="${2:-/api/chess/stats/guest-current?username=hikaru}"
+PORT="${PORT:-8080}"
+HEAP_OPTS="${HEAP_OPTS:--Xmx350m -Xms150m -XX:+UseSerialGC}"
+JAR=$(ls ../server/target/*.jar 2>/dev/null | head -n 1)
+
+if [ -z "$JAR" ]; then
+  echo " No jar found in server/target. Build it first."
+  exit 1
+fi
+
+wait_for_health() {
+  for _ in $(seq 1 120); do
+    if curl -s -o /dev/null -w "%{http_code}" "http://localhost:$PORT/api/chess/stats/health" | grep -q 200; then
+      return 0
+    fi
+    sleep 0.5
+  done
+  return 1
+}
+
+run_mode() {
+  local mode="$1"
+  local profiles="$2"
+
+  echo ""
+  echo "=== $mode (profiles: ${profiles:-default}) ==="
+  SPRING_PROFILES_ACTIVE="$profiles" PORT="$PORT" java $HEAP_OPTS -jar "$JAR" > "/tmp/concurrency-$mode.log" 2>&1 &
+  local pid=$!
+
+  if ! wait_for_health; then
+    echo " Server did not become healthy, see /tmp/concurrency-$mode.log"
+    kill "$pid" 2>/dev/null
+    return
+  fi
+
+  local peak_conns=0
+  local peak_rss=0
+  (
+    while kill -0 "$pid" 2>/dev/null; do
+      conns=$(ss -Htn state established "( sport = :$PORT )" 2>/dev/null | wc -l)
+      rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status" 2>/dev/null)
+      echo "$conns ${rss:-0}"
+      sleep 0.1
+    done
+  ) > "/tmp/concurrency-$mode.samples" &
+  local sampler=$!
+
+  local start=$(date +%s.%N)
+  seq 1 "$CONCURRENCY" | xargs -P "$CONCURRENCY" -I{} \
+    curl -s -o /dev/null -w "%{http_code}\n" --max-time 60 "http://localhost:$PORT$ENDPOINT" \
+    > "/tmp/concurrency-$mode.codes"
+  local end=$(date +%s.%N)
+
+  kill "$sampler" 2>/dev/null
+  kill "$pid" 2>/dev/null
+  wait "$pid" 2>/dev/null
+
+  peak_conns=$(awk 'BEGIN {m=0} $1>m {m=$1} END {print m}' "/tmp/concurrency-$mode.samples")
+  peak_rss=$(awk 'BEGIN {m=0} $2>m {m=$2} END {print int(m/1024)}' "/tmp/concurrency-$mode.samples")
+
+  echo "Completed (2xx): $(grep -c '^2' "/tmp/concurrency-$mode.codes")"
+  echo "Failed:          $(grep -vc '^2' "/tmp/concurrency-$mode.codes")"
+  echo "Wall time:       $(echo "$end - $start" | bc) s"
+  echo "Peak in-flight:  $peak_conns connections"
+  echo "Peak RSS:        $peak_rss MB"
+  echo "Pinned warnings: $(grep -c 'Virtual thread pinned' "/tmp/concurrency-$mode.log")"
+}
+
+run_mode "platform" "$SPRING_PROFILES_EXTRA"
+run_mode "virtual" "virtual${SPRING_PROFILES_EXTRA:+,$SPRING_PROFILES_EXTRA}"
@@ -0,0 +1,160 @@
+-- Synthetic daily_ratings benchmark. Runs in its own schema and never touches application data.
+-- Variables: users, days (users * days rows per table).
+--
+--   username_ratings     the V2__partition_daily_ratings.sql layout, keyed by username
+--   partitioned_ratings  the current (V4__players.sql) layout, keyed by player_id, with the date BRIN index
+--   heap_ratings         the same columns as partitioned_ratings in a single table with a date B-tree
+--
+-- All three are loaded day-major (every player's row for a day, then the next day), the order the
+-- migrations copy existing rows in and the nightly update appends them in.
+
+DROP SCHEMA IF EXISTS daily_ratings_bench CASCADE;
+CREATE SCHEMA daily_ratings_bench;
+SET search_path = daily_ratings_bench;
+
+-- Sizes summed over a table or index and its partitions
+CREATE FUNCTION tree_size(relation REGCLASS) RETURNS BIGINT AS $$
+    SELECT coalesce(sum(pg_relation_size(relid)), 0) FROM pg_partition_tree(relation)
+$$ LANGUAGE sql;
+
+CREATE FUNCTION tree_total_size(relation REGCLASS) RETURNS BIGINT AS $$
+    SELECT coalesce(sum(pg_total_relation_size(relid)), 0) FROM pg_partition_tree(relation) WHERE isleaf
+$$ LANGUAGE sql;
+
+CREATE TABLE players (
+    id       INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE username_ratings (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    username      VARCHAR(255) NOT NULL,
+    date          DATE NOT NULL,
+    rapid_rating  INTEGER,
+    blitz_rating  INTEGER,
+    bullet_rating INTEGER,
+    PRIMARY KEY (id, username),
+    CONSTRAINT username_ratings_key UNIQUE (username, date)
+) PARTITION BY HASH (username);
+
+CREATE TABLE partitioned_ratings (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    player_id     INTEGER NOT NULL REFERENCES players (id),
+    date          DATE NOT NULL,
+    rapid_rating  INTEGER,
+    blitz_rating  INTEGER,
+    bullet_rating INTEGER,
+    PRIMARY KEY (id, player_id),
+    CONSTRAINT partitioned_ratings_key UNIQUE (player_id, date)
+) PARTITION BY HASH (player_id);
+
+CREATE TABLE heap_ratings (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    player_id     INTEGER NOT NULL REFERENCES players (id),
+    date          DATE NOT NULL,
+    rapid_rating  INTEGER,
+    blitz_rating  INTEGER,
+    bullet_rating INTEGER,
+    CONSTRAINT heap_ratings_key UNIQUE (player_id, date)
+);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format(
+            'CREATE TABLE username_ratings_p%s PARTITION OF username_ratings FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+            lpad(i::text, 2, '0'), i);
+        EXECUTE format(
+            'CREATE TABLE partitioned_ratings_p%s PARTITION OF partitioned_ratings FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+            lpad(i::text, 2, '0'), i);
+    END LOOP;
+END $$;
+
+-- 13-character usernames; player_0004242 gets id 4242
+INSERT INTO players (id, username)
+SELECT u, 'player_' || lpad(u::text, 7, '0')
+FROM generate_series(1, :users) u;
+
+INSERT INTO username_ratings (username, date, rapid_rating, blitz_rating, bullet_rating)
+SELECT p.username, DATE '2000-01-01' + d, 1200 + (p.id * 7 + d) % 800, 1200 + (p.id * 13 + d) % 800, NULL
+FROM generate_series(0, :days - 1) d, players p
+ORDER BY d, p.username;
+
+INSERT INTO partitioned_ratings (player_id, date, rapid_rating, blitz_rating, bullet_rating)
+SELECT p.id, DATE '2000-01-01' + d, 1200 + (p.id * 7 + d) % 800, 1200 + (p.id * 13 + d) % 800, NULL
+FROM generate_series(0, :days - 1) d, players p
+ORDER BY d, p.id;
+
+INSERT INTO heap_ratings (player_id, date, rapid_rating, blitz_rating, bullet_rating)
+SELECT player_id, date, rapid_rating, blitz_rating, bullet_rating FROM partitioned_ratings ORDER BY date, player_id;
+
+CREATE INDEX username_ratings_date_brin ON username_ratings USING brin (date) WITH (pages_per_range = 32);
+CREATE INDEX partitioned_ratings_date_brin ON partitioned_ratings USING brin (date) WITH (pages_per_range = 32);
+CREATE INDEX heap_ratings_date_btree ON heap_ratings (date);
+
+VACUUM ANALYZE players;
+VACUUM ANALYZE username_ratings;
+VACUUM ANALYZE partitioned_ratings;
+VACUUM ANALYZE heap_ratings;
+
+-- username key versus player_id key (average row from a 1% sample)
+SELECT 'username_ratings' AS relation,
+       (SELECT round(avg(pg_column_size(r.*))) FROM username_ratings r TABLESAMPLE SYSTEM (1)) AS avg_row_bytes,
+       pg_size_pretty(tree_size('username_ratings')) AS heap_size,
+       pg_size_pretty(tree_size('username_ratings_key')) AS unique_index_size,
+       pg_size_pretty(tree_size('username_ratings_date_brin')) AS date_index_size,
+       pg_size_pretty(tree_total_size('username_ratings')) AS total_size
+UNION ALL
+SELECT 'partitioned_ratings',
+       (SELECT round(avg(pg_column_size(r.*))) FROM partitioned_ratings r TABLESAMPLE SYSTEM (1)),
+       pg_size_pretty(tree_size('partitioned_ratings')),
+       pg_size_pretty(tree_size('partitioned_ratings_key')),
+       pg_size_pretty(tree_size('partitioned_ratings_date_brin')),
+       pg_size_pretty(tree_total_size('partitioned_ratings'))
+UNION ALL
+SELECT 'heap_ratings',
+       (SELECT round(avg(pg_column_size(r.*))) FROM heap_ratings r TABLESAMPLE SYSTEM (1)),
+       pg_size_pretty(pg_relation_size('heap_ratings')),
+       pg_size_pretty(pg_relation_size('heap_ratings_key')),
+       pg_size_pretty(pg_relation_size('heap_ratings_date_btree')),
+       pg_size_pretty(pg_total_relation_size('heap_ratings'));
+
+-- BRIN selectivity depends on heap order following date: correlation near 1.0 keeps block ranges narrow
+SELECT regexp_replace(tablename, '_p[0-9]+$', '') AS relation, round(avg(correlation)::numeric, 3) AS date_correlation
+FROM pg_stats
+WHERE schemaname = 'daily_ratings_bench' AND attname = 'date'
+GROUP BY 1
+ORDER BY 1;
+
+-- ChessDailyRatingRepository.findByPlayerIdAndDateBetween (month history)
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM heap_ratings WHERE player_id = 4242 AND date BETWEEN DATE '2001-03-01' AND DATE '2001-03-31' ORDER BY date;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM partitioned_ratings WHERE player_id = 4242 AND date BETWEEN DATE '2001-03-01' AND DATE '2001-03-31' ORDER BY date;
+
+-- ChessDailyRatingRepository.findByPlayerIdOrderByDateAsc (full history, snapshot)
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM heap_ratings WHERE player_id = 4242 ORDER BY date;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM partitioned_ratings WHERE player_id = 4242 ORDER BY date;
+
+-- ChessDailyRatingRepository.existsByPlayerId
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT 1 FROM heap_ratings WHERE player_id = 4242 LIMIT 1;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT 1 FROM partitioned_ratings WHERE player_id = 4242 LIMIT 1;
+
+-- Prepared statements as Hibernate issues them: pruning must also happen at execution time
+-- with a generic plan (shown as "Subplans Removed")
+SET plan_cache_mode = force_generic_plan;
+PREPARE month_history(INTEGER, DATE, DATE) AS
+SELECT * FROM partitioned_ratings WHERE player_id = $1 AND date BETWEEN $2 AND $3 ORDER BY date;
+EXPLAIN (ANALYZE, COSTS OFF) EXECUTE month_history(4242, DATE '2001-03-01', DATE '2001-03-31');
+DEALLOCATE month_history;
+RESET plan_cache_mode;
+
+-- Cross-user time range scan (one day for every player): B-tree versus BRIN
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*), avg(rapid_rating) FROM heap_ratings WHERE date = DATE '2001-06-15';
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*), avg(rapid_rating) FROM partitioned_ratings WHERE date = DATE '2001-06-15';
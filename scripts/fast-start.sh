@@ -0,0 +1,80 @@
+#!/bin/bash
+
+# Fast-start launcher: Spring AOT + AppCDS archive
+#
+#   ./fast-start.sh extract   Unpack the fat jar into target/fast-start (app.jar + lib/)
+#   ./fast-start.sh train     extract, then start the context once and dump an AppCDS archive
+#   ./fast-start.sh run       Launch using the AOT-generated beans and the AppCDS archive
+#
+# Normally "train" is run by: cd server && mvn -Pfast-start clean package
+# CDS needs plain jars on a stable class path, so the nested-jar layout of the
+# Spring Boot fat jar is unpacked into an app.jar whose manifest lists lib/*.jar.
+
+set -e
+
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+SERVER_DIR="$SCRIPT_DIR/../server"
+OUT_DIR="$SERVER_DIR/target/fast-start"
+ARCHIVE="$OUT_DIR/application.jsa"
+JVM_OPTS="${JVM_OPTS:--Xmx350m -Xms150m -XX:MaxMetaspaceSize=90m -XX:+UseSerialGC}"
+
+extract() {
+  local jar
+  jar=$(ls "$SERVER_DIR"/target/*.jar | grep -v '\.original$' | head -n 1)
+  if [ -z "$jar" ]; then
+    echo " No jar found in server/target. Build it first."
+    exit 1
+  fi
+
+  rm -rf "$OUT_DIR"
+  mkdir -p "$OUT_DIR/unpacked" "$OUT_DIR/lib"
+  (cd "$OUT_DIR/unpacked" && jar -xf "$jar")
+  cp "$OUT_DIR"/unpacked/BOOT-INF/lib/*.jar "$OUT_DIR/lib/"
+
+  local main_class
+  main_class=$(awk -F': ' '/^Start-Class:/ {print $2}' "$OUT_DIR/unpacked/META-INF/MANIFEST.MF" | tr -d '\r')
+
+  # Manifest lines are limited to 72 bytes; long values continue on lines starting with a space
+  {
+    echo "Main-Class: $main_class"
+    echo "Class-Path: $(cd "$OUT_DIR" && ls lib/*.jar | sort | tr '\n' ' ')" | fold -w 70 | sed '2,$s/^/ /'
+  } > "$OUT_DIR/MANIFEST.MF"
+
+  jar --create --file "$OUT_DIR/app.jar" --manifest "$OUT_DIR/MANIFEST.MF" -C "$OUT_DIR/unpacked/BOOT-INF/classes" .
+  rm -rf "$OUT_DIR/unpacked"
+  echo " Extracted $(basename "$jar") to $OUT_DIR"
+}
+
+train() {
+  extract
+  echo "Training run: recording AppCDS archive..."
+  (cd "$OUT_DIR" && java $JVM_OPTS \
+    -XX:ArchiveClassesAtExit="$ARCHIVE" \
+    -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh \
+    -jar app.jar)
+  echo " AppCDS archive written to $ARCHIVE"
+}
+
+run() {
+  if [ ! -f "$ARCHIVE" ]; then
+    echo " No AppCDS archive found. Run: cd server && mvn -Pfast-start clean package"
+    exit 1
+  fi
+  cd "$OUT_DIR"
+  exec java $JVM_OPTS \
+    -XX:SharedArchiveFile="$ARCHIVE" \
+    -Xshare:auto \
+    -Dspring.aot.enabled=true \
+    -jar app.jar "$@"
+}
+
+case "$1" in
+  extract) extract ;;
+  train) train ;;
+  run) shift; run "$@" ;;
+  *)
+    echo "Usage: $0 {extract|train|run}"
+    exit 1
+    ;;
+esac
@@ -0,0 +1,24 @@
+#!/bin/bash
+
+# Interactive wait for a Chess.com request slot while refresh and background callers saturate
+# every slot: first-come-first-served semaphore vs OutboundRequestScheduler's priority lanes
+# (LaneSchedulerBenchmark.java). Runs in-process; no server or database needed.
+#
+# Usage: ./lane-scheduler-benchmark.sh [duration-ms]
+# Requires: cd server && mvn compile
+
+DURATION_MS="${1:-15000}"
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+SERVER_DIR="$SCRIPT_DIR/../server"
+CP_FILE="$SERVER_DIR/target/benchmark.classpath"
+
+if [ ! -d "$SERVER_DIR/target/classes" ]; then
+  echo " No compiled classes in server/target. Run mvn compile first."
+  exit 1
+fi
+
+if [ ! -f "$CP_FILE" ]; then
+  (cd "$SERVER_DIR" && mvn -q dependency:build-classpath -Dmdep.outputFile="$CP_FILE") || exit 1
+fi
+
+"${JAVA_HOME:+$JAVA_HOME/bin/}java" -cp "$SERVER_DIR/target/classes:$(cat "$CP_FILE")" "$SCRIPT_DIR/LaneSchedulerBenchmark.java" "$DURATION_MS"
@@ -0,0 +1,45 @@
+#!/bin/bash
+
+# Compare JSON, CBOR and Smile encodings of the snapshot payload.
+#   1. In-process: encoded size, gzipped size, serialize and parse time per format,
+#      using the server's model classes (PayloadFormatBenchmark.java)
+#   2. Over HTTP, if a server is running on PORT: response size and total time of
+#      /api/snapshot/generate for each Accept header
+#
+# Usage: ./payload-format-benchmark.sh [iterations] [snapshot.json]
+# Requires: cd server && mvn compile
+
+ITERATIONS="${1:-2000}"
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+SNAPSHOT="${2:-$SCRIPT_DIR/../client/public/data/stored-user-snapshot.json}"
+PORT="${PORT:-8080}"
+SERVER_DIR="$SCRIPT_DIR/../server"
+CP_FILE="$SERVER_DIR/target/benchmark.classpath"
+
+if [ ! -d "$SERVER_DIR/target/classes" ]; then
+  echo " No compiled classes in server/target. Run mvn compile first."
+  exit 1
+fi
+
+if [ ! -f "$CP_FILE" ]; then
+  (cd "$SERVER_DIR" && mvn -q dependency:build-classpath -Dmdep.outputFile="$CP_FILE") || exit 1
+fi
+
+echo "=== In-process ==="
+"${JAVA_HOME:+$JAVA_HOME/bin/}java" -cp "$SERVER_DIR/target/classes:$(cat "$CP_FILE")" "$SCRIPT_DIR/PayloadFormatBenchmark.java" "$SNAPSHOT" "$ITERATIONS"
+
+URL="http://localhost:$PORT/api/snapshot/generate"
+if ! curl -s -o /dev/null "$URL"; then
+  echo ""
+  echo "No server on port $PORT, skipping HTTP measurements"
+  exit 0
+fi
+
+echo ""
+echo "=== HTTP $URL (average of 20 requests) ==="
+printf "%-32s %10s %10s\n" "Accept" "Bytes" "Time(ms)"
+for accept in application/json application/cbor application/x-jackson-smile; do
+  for _ in $(seq 1 20); do
+    curl -s -o /dev/null -H "Accept: $accept" -w "%{size_download} %{time_total}\n" "$URL"
+  done | awk -v accept="$accept" '{ size = $1; total += $2 } END { printf "%-32s %10d %10.1f\n", accept, size, total * 1000 / NR }'
+done
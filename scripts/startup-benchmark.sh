@@ -0,0 +1,62 @@
+#!/bin/bash
+
+# Measure cold-start time and memory for the regular jar and the fast-start (AOT + AppCDS) launch.
+# For each mode, starts the server RUNS times and records:
+#   - milliseconds from process launch to the first 200 from /api/chess/stats/health
+#   - RSS of the process right after that first successful response
+#
+# Usage: ./startup-benchmark.sh [runs]
+# Requires: cd server && mvn -Pfast-start clean package  (builds both the jar and the archive)
+
+RUNS="${1:-5}"
+PORT="${PORT:-8080}"
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+JVM_OPTS="${JVM_OPTS:--Xmx350m -Xms150m -XX:MaxMetaspaceSize=90m -XX:+UseSerialGC}"
+JAR=$(ls "$SCRIPT_DIR"/../server/target/*.jar | grep -v '\.original$' | head -n 1)
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+measure() {
+  local mode="$1"
+  shift
+  local total_ms=0
+  local total_rss=0
+
+  echo ""
+  echo "=== $mode ==="
+  for i in $(seq 1 "$RUNS"); do
+    local start
+    start=$(now_ms)
+    PORT="$PORT" "$@" > "/tmp/startup-$mode.log" 2>&1 &
+    local pid=$!
+
+    until curl -s -o /dev/null -w "%{http_code}" "http://localhost:$PORT/api/chess/stats/health" 2>/dev/null | grep -q 200; do
+      if ! kill -0 "$pid" 2>/dev/null; then
+        echo " Server exited, see /tmp/startup-$mode.log"
+        return
+      fi
+      sleep 0.05
+    done
+
+    local elapsed=$(( $(now_ms) - start ))
+    # The java process may be a child of the launcher script
+    local java_pid
+    java_pid=$(pgrep -P "$pid" java || echo "$pid")
+    local rss
+    rss=$(awk '/VmRSS/ {print int($2/1024)}' "/proc/$java_pid/status")
+
+    echo "Run $i: first healthy response after ${elapsed} ms, RSS ${rss} MB"
+    total_ms=$(( total_ms + elapsed ))
+    total_rss=$(( total_rss + rss ))
+
+    kill "$java_pid" "$pid" 2>/dev/null
+    wait "$pid" 2>/dev/null
+  done
+
+  echo "Average: $(( total_ms / RUNS )) ms, $(( total_rss / RUNS )) MB RSS"
+}
+
+measure "jar" java $JVM_OPTS -jar "$JAR"
+measure "fast-start" bash "$SCRIPT_DIR/fast-start.sh" run
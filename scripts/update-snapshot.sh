@@ -2,6 +2,8 @@
 
 # Script to update the stored user snapshot file
 # Run this script when you want to update the cached data in the frontend
+# (a server with CHESS_SNAPSHOT_PUBLISH_DIRECTORY set publishes it itself after each nightly update,
+# minified and pre-compressed; see "Static Snapshot Publishing" in server/README.md)
 
 # Default to Railway production URL, or use localhost if provided
 SERVER_URL="${1:-https://your-railway-backend.railway.app}"
@@ -0,0 +1,216 @@
+package com.bdvitz.codingstats.config;
+
+import com.bdvitz.codingstats.service.AdaptiveConcurrencyLimit;
+import com.bdvitz.codingstats.service.StoredUserIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for /api requests, so overload turns into fast 503s with Retry-After
+ * instead of connection resets and timeouts at Tomcat.
+ *
+ * Each endpoint class has an AdaptiveConcurrencyLimit that shrinks when its latency climbs:
+ * CACHED (database and in-memory reads, job submissions) waits up to queue-timeout-ms for a slot, with at most
+ * max-waiting requests waiting (each holds a Tomcat thread); beyond that it is shed like UPSTREAM.
+ * UPSTREAM (guest endpoints that call Chess.com on every request, derived-stats rebuilds and bulk imports) is shed
+ * immediately when full, and also while any cached read is waiting, so cached reads are served first.
+ * Current stats and month history serve stored users from the database and everyone else from Chess.com,
+ * so those requests are classified by whether the username has anything stored, from StoredUserIndex's
+ * in-memory sets: classification never touches the database.
+ *
+ * Runs as an interceptor rather than a filter so rejections still pass through CorsFilter and
+ * the browser can read Retry-After. The stream and job-status endpoints are not limited (see WebConfig).
+ */
+@Component
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    public enum EndpointClass { CACHED, UPSTREAM }
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlInterceptor.class);
+
+    private static final String CLASS_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".class";
+    private static final String START_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".start";
+
+    private static final Set<String> UPSTREAM_PATHS = Set.of(
+            "/api/chess/stats/guest-current",
+            "/api/chess/stats/verify",
+            "/api/chess/stats/batch",
+            "/api/chess/stats/verify/batch",
+            "/api/chess/history/guest-month",
+            "/api/chess/history/months",
+            "/api/chess/derived/rebuild",
+            "/api/import/snapshot",
+            "/api/import/history");
+
+    private static final String CURRENT_STATS_PATH = "/api/chess/stats/current";
+    // Read stored data, or fetch from Chess.com when the user has none
+    private static final Set<String> STORED_OR_UPSTREAM_PATHS = Set.of(
+            CURRENT_STATS_PATH,
+            "/api/chess/history/month",
+            "/api/chess/history/current");
+
+    private final ObjectMapper objectMapper;
+    private final StoredUserIndex storedUserIndex;
+    private final boolean enabled;
+    private final long cachedQueueTimeoutMs;
+    private final int cachedMaxWaiting;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, AtomicLong> rejected = new EnumMap<>(EndpointClass.class);
+
+    public AdmissionControlInterceptor(
+            ObjectMapper objectMapper,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            StoredUserIndex storedUserIndex,
+            @Value("${chess.admission.enabled:true}") boolean enabled,
+            @Value("${chess.admission.latency-tolerance:2.0}") double tolerance,
+            @Value("${chess.admission.window-ms:1000}") long windowMs,
+            @Value("${chess.admission.cached.min-limit:4}") int cachedMinLimit,
+            @Value("${chess.admission.cached.max-limit:12}") int cachedMaxLimit,
+            @Value("${chess.admission.cached.queue-timeout-ms:1000}") long cachedQueueTimeoutMs,
+            @Value("${chess.admission.cached.max-waiting:2}") int cachedMaxWaiting,
+            @Value("${chess.admission.upstream.min-limit:1}") int upstreamMinLimit,
+            @Value("${chess.admission.upstream.max-limit:6}") int upstreamMaxLimit,
+            @Value("${chess.admission.reserved-threads:2}") int reservedThreads,
+            @Value("${server.tomcat.threads.max:200}") int tomcatThreads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.storedUserIndex = storedUserIndex;
+        this.enabled = enabled;
+        this.cachedQueueTimeoutMs = cachedQueueTimeoutMs;
+        // On platform threads, admitted requests and waiters together must leave reserved-threads for the
+        // unlimited stream and job endpoints; virtual threads aren't capped by the pool
+        int threadsForWaiters = tomcatThreads - cachedMaxLimit - upstreamMaxLimit - reservedThreads;
+        if (!virtualThreads && cachedMaxWaiting > threadsForWaiters) {
+            logger.warn("chess.admission.cached.max-waiting {} lowered to {} to keep {} of {} Tomcat threads free",
+                    cachedMaxWaiting, Math.max(0, threadsForWaiters), reservedThreads, tomcatThreads);
+            cachedMaxWaiting = Math.max(0, threadsForWaiters);
+        }
+        this.cachedMaxWaiting = cachedMaxWaiting;
+        limits.put(EndpointClass.CACHED,
+                new AdaptiveConcurrencyLimit("cached", cachedMinLimit, cachedMaxLimit, tolerance, windowMs));
+        limits.put(EndpointClass.UPSTREAM,
+                new AdaptiveConcurrencyLimit("upstream", upstreamMinLimit, upstreamMaxLimit, tolerance, windowMs));
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            rejected.put(endpointClass, new AtomicLong());
+        }
+        meterRegistry.ifAvailable(this::registerMetrics);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // Async dispatches were admitted on the original request
+        if (!enabled || !(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
+        EndpointClass endpointClass = classify(request);
+        AdaptiveConcurrencyLimit limit = limits.get(endpointClass);
+        boolean admitted = endpointClass == EndpointClass.CACHED
+                ? limit.acquire(cachedQueueTimeoutMs, cachedMaxWaiting)
+                : limits.get(EndpointClass.CACHED).getWaiting() == 0 && limit.tryAcquire();
+        if (!admitted) {
+            rejected.get(endpointClass).incrementAndGet();
+            reject(response, endpointClass, limit);
+            return false;
+        }
+
+        request.setAttribute(CLASS_ATTRIBUTE, endpointClass);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(CLASS_ATTRIBUTE) instanceof EndpointClass endpointClass) {
+            request.removeAttribute(CLASS_ATTRIBUTE);
+            long start = (Long) request.getAttribute(START_ATTRIBUTE);
+            limits.get(endpointClass).release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Limits by endpoint class, for metrics and diagnostics
+     */
+    public Map<EndpointClass, AdaptiveConcurrencyLimit> getLimits() {
+        return limits;
+    }
+
+    private EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (UPSTREAM_PATHS.contains(path)) {
+            return EndpointClass.UPSTREAM;
+        }
+        if (STORED_OR_UPSTREAM_PATHS.contains(path)) {
+            return reachesUpstream(path, request.getParameter("username")) ? EndpointClass.UPSTREAM : EndpointClass.CACHED;
+        }
+        return EndpointClass.CACHED;
+    }
+
+    /**
+     * Whether a stored-or-guest read will call Chess.com: the username has no stored or pending data
+     */
+    private boolean reachesUpstream(String path, String username) {
+        if (username == null || username.isBlank()) {
+            return false;
+        }
+        return CURRENT_STATS_PATH.equals(path)
+                ? !storedUserIndex.hasStoredStats(username)
+                : !storedUserIndex.hasStoredHistory(username);
+    }
+
+    private void reject(HttpServletResponse response, EndpointClass endpointClass, AdaptiveConcurrencyLimit limit)
+            throws IOException {
+        // Roughly one request time at the current latency, long enough for a slot to free up
+        long retryAfterSeconds = Math.max(1, (limit.getLatencyMs() + 999) / 1000);
+        logger.debug("Shedding {} request (limit {}, in flight {})", endpointClass, limit.getLimit(), limit.getInFlight());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", "Server is busy, try again shortly"));
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String tag = endpointClass.name().toLowerCase();
+            AdaptiveConcurrencyLimit limit = limits.get(endpointClass);
+            Gauge.builder("chess.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("class", tag)
+                    .register(registry);
+            Gauge.builder("chess.admission.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("class", tag)
+                    .register(registry);
+            Gauge.builder("chess.admission.latency", limit, AdaptiveConcurrencyLimit::getLatencyMs)
+                    .description("Average latency of the last window")
+                    .baseUnit("milliseconds")
+                    .tag("class", tag)
+                    .register(registry);
+            FunctionCounter.builder("chess.admission.rejected", rejected.get(endpointClass), AtomicLong::get)
+                    .description("Requests shed with 503")
+                    .tag("class", tag)
+                    .register(registry);
+        }
+    }
+}
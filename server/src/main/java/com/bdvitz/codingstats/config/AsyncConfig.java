@@ -0,0 +1,123 @@
+package com.bdvitz.codingstats.config;
+
+import com.bdvitz.codingstats.service.RequestLane;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for work that should not run on Tomcat request threads.
+ * Pools are kept small to stay within Railway's 500 MB memory limit.
+ *
+ * With spring.threads.virtual.enabled=true (the "virtual" profile) each task gets its own
+ * virtual thread instead; concurrency towards Chess.com is still capped by the outbound
+ * permits in ChessComApiService and refreshes are still deduplicated per user. The job executor
+ * stays bounded either way: pool-size virtual threads and a queue of queue-capacity.
+ *
+ * Each executor tags its tasks with the RequestLane their Chess.com calls are queued in:
+ * refresh work runs in REFRESH, batch fan-out keeps the lane of the submitting request.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Executor for background refreshes of stored data (stale-while-revalidate)
+     */
+    @Bean(name = "refreshExecutor")
+    public TaskExecutor refreshExecutor(
+            @Value("${chess.refresh.pool-size:2}") int poolSize,
+            @Value("${chess.refresh.queue-capacity:50}") int queueCapacity) {
+        if (virtualThreads) {
+            return virtualThreadExecutor("refresh-", RequestLane.decorator(RequestLane.REFRESH));
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("refresh-");
+        executor.setTaskDecorator(RequestLane.decorator(RequestLane.REFRESH));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Executor for refresh jobs submitted through the API (RefreshJobService).
+     * Separate from refreshExecutor so user-triggered refreshes can't crowd out stale-while-revalidate.
+     * Bounded in both profiles, so a full queue rejects (503 from the job endpoints) instead of piling up
+     */
+    @Bean(name = "jobExecutor")
+    public TaskExecutor jobExecutor(
+            @Value("${chess.jobs.pool-size:2}") int poolSize,
+            @Value("${chess.jobs.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name("job-", 0).factory());
+        }
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("job-");
+        executor.setTaskDecorator(RequestLane.decorator(RequestLane.REFRESH));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Executor for fanning out Chess.com calls in batch requests.
+     * Sized to the outbound limit so queued tasks wait here instead of holding a permit slot
+     */
+    @Bean(name = "outboundExecutor")
+    public TaskExecutor outboundExecutor(
+            @Value("${chess.api.max-concurrent-requests:4}") int maxConcurrentRequests) {
+        if (virtualThreads) {
+            return virtualThreadExecutor("outbound-", RequestLane.inheriting());
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentRequests);
+        executor.setMaxPoolSize(maxConcurrentRequests);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("outbound-");
+        executor.setTaskDecorator(RequestLane.inheriting());
+        return executor;
+    }
+
+    /**
+     * Executor that writes queued server-sent events to subscribers (RatingStreamService).
+     * A subscriber has at most one task queued or running, so the queue never exceeds the subscriber limit
+     */
+    @Bean(name = "streamExecutor")
+    public TaskExecutor streamExecutor(
+            @Value("${chess.stream.send-threads:4}") int threads,
+            @Value("${chess.stream.max-subscribers:50}") int maxSubscribers) {
+        if (virtualThreads) {
+            return virtualThreadExecutor("stream-", RequestLane.inheriting());
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(maxSubscribers);
+        executor.setThreadNamePrefix("stream-");
+        return executor;
+    }
+
+    private TaskExecutor virtualThreadExecutor(String namePrefix, TaskDecorator laneDecorator) {
+        TaskExecutorAdapter executor = new TaskExecutorAdapter(Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(namePrefix, 0).factory()));
+        executor.setTaskDecorator(laneDecorator);
+        return executor;
+    }
+}
@@ -0,0 +1,67 @@
+package com.bdvitz.codingstats.config;
+
+import com.bdvitz.codingstats.service.ChessComApiService;
+import com.bdvitz.codingstats.service.CircuitBreaker;
+import com.bdvitz.codingstats.service.NegativeResultCache;
+import com.bdvitz.codingstats.service.OutboundRequestScheduler;
+import com.bdvitz.codingstats.service.UpstreamEndpoint;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes Chess.com circuit breaker state and outbound lane queues under /actuator/health (component "chessCom").
+ * Reports UP even while a breaker is open: the app keeps serving stored data during
+ * an upstream outage, so it should not be restarted or pulled from rotation.
+ */
+@Component("chessCom")
+public class ChessComHealthIndicator implements HealthIndicator {
+
+    private final ChessComApiService chessComApiService;
+    private final NegativeResultCache negativeResultCache;
+    private final OutboundRequestScheduler outboundScheduler;
+
+    public ChessComHealthIndicator(
+            ChessComApiService chessComApiService,
+            NegativeResultCache negativeResultCache,
+            OutboundRequestScheduler outboundScheduler) {
+        this.chessComApiService = chessComApiService;
+        this.negativeResultCache = negativeResultCache;
+        this.outboundScheduler = outboundScheduler;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Object> breakers = new LinkedHashMap<>();
+        boolean allClosed = true;
+
+        for (Map.Entry<UpstreamEndpoint, CircuitBreaker> entry : chessComApiService.getCircuitBreakers().entrySet()) {
+            CircuitBreaker breaker = entry.getValue();
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("state", breaker.getState().name());
+            details.put("consecutiveFailures", breaker.getConsecutiveFailures());
+            details.put("rejectedCalls", breaker.getRejectedCalls());
+            details.put("retryAfterMs", breaker.getRetryAfterMs());
+            breakers.put(entry.getKey().name().toLowerCase(), details);
+            allClosed &= breaker.getState() == CircuitBreaker.State.CLOSED;
+        }
+
+        Map<String, Object> negativeCache = new LinkedHashMap<>();
+        negativeCache.put("size", negativeResultCache.size());
+        for (NegativeResultCache.Kind kind : NegativeResultCache.Kind.values()) {
+            negativeCache.put(kind.name().toLowerCase(), Map.of(
+                    "hits", negativeResultCache.getHits(kind),
+                    "misses", negativeResultCache.getMisses(kind)));
+        }
+
+        return Health.up()
+                .withDetail("upstream", allClosed ? "available" : "degraded")
+                .withDetail("circuitBreakers", breakers)
+                .withDetail("negativeCache", negativeCache)
+                .withDetail("outboundLanes", outboundScheduler.getLaneStats())
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.bdvitz.codingstats.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.jdbc.DataSourceHealthIndicator;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Two Hikari pools behind one routing DataSource: "primary" for writes and everything else,
+ * "read" for ReadOnlyTransactions (history, snapshot and current-stats reads), so a burst of
+ * chart loads can't take every connection the write-behind flush and scheduler need.
+ *
+ * The read pool points at chess.datasource.read.url (a replica) when set, otherwise at the primary
+ * database with its own connections. Flyway always migrates through the primary pool.
+ * Hikari reports hikaricp.* metrics per pool; chess.datasource.connections counts connections by route.
+ */
+@Configuration
+@Profile("!embedded")
+public class DataSourceConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource readDataSource(
+            DataSourceProperties properties,
+            @Value("${chess.datasource.read.url:}") String url,
+            @Value("${chess.datasource.read.username:}") String username,
+            @Value("${chess.datasource.read.password:}") String password,
+            @Value("${chess.datasource.read.maximum-pool-size:3}") int maximumPoolSize,
+            @Value("${chess.datasource.read.minimum-idle:1}") int minimumIdle,
+            @Value("${chess.datasource.read.connection-timeout-ms:2000}") long connectionTimeoutMs) {
+        boolean replica = !url.isBlank();
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("read");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(replica ? url : properties.determineUrl());
+        dataSource.setUsername(replica && !username.isBlank() ? username : properties.determineUsername());
+        dataSource.setPassword(replica && !password.isBlank() ? password : properties.determinePassword());
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setMinimumIdle(minimumIdle);
+        dataSource.setConnectionTimeout(connectionTimeoutMs);
+        dataSource.setReadOnly(true);
+        // Start even if the replica is down; reads fall back to the primary until it is reachable
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public ReadWriteRoutingDataSource dataSource(
+            @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            @Qualifier("readDataSource") HikariDataSource readDataSource,
+            @Value("${chess.datasource.read.failure-threshold:3}") int failureThreshold,
+            @Value("${chess.datasource.read.retry-after-ms:30000}") long retryAfterMs,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        ReadWriteRoutingDataSource dataSource =
+                new ReadWriteRoutingDataSource(primaryDataSource, readDataSource, failureThreshold, retryAfterMs);
+        meterRegistry.ifAvailable(registry -> {
+            for (ReadWriteRoutingDataSource.Route route : ReadWriteRoutingDataSource.Route.values()) {
+                FunctionCounter.builder("chess.datasource.connections", dataSource, ds -> ds.getConnectionCount(route))
+                        .description("Connections handed out by the routing DataSource")
+                        .tag("route", route.name().toLowerCase())
+                        .register(registry);
+            }
+        });
+        return dataSource;
+    }
+
+    /**
+     * Replaces Boot's per-DataSource "db" check: only the primary decides health, since reads
+     * fall back to it while the read pool is unavailable
+     */
+    @Bean
+    public HealthIndicator dbHealthIndicator(
+            @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            ReadWriteRoutingDataSource routingDataSource) {
+        DataSourceHealthIndicator primary = new DataSourceHealthIndicator(primaryDataSource);
+        return () -> {
+            Health primaryHealth = primary.health();
+            return Health.status(primaryHealth.getStatus())
+                    .withDetails(primaryHealth.getDetails())
+                    .withDetail("readPool", routingDataSource.isReadPoolAvailable() ? "available" : "falling back to primary")
+                    .build();
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.bdvitz.codingstats.config;
+
+import com.bdvitz.codingstats.service.MemoryGovernor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes the memory pressure level and which components hold how much under /actuator/health
+ * (component "memory"). Reports UP at every level: the governor degrades features to stay within
+ * the container limit, which is the point, not a reason to restart.
+ */
+@Component("memory")
+public class MemoryHealthIndicator implements HealthIndicator {
+
+    private static final long KB = 1024;
+    private static final long MB = 1024 * 1024;
+
+    private final MemoryGovernor memoryGovernor;
+
+    public MemoryHealthIndicator(MemoryGovernor memoryGovernor) {
+        this.memoryGovernor = memoryGovernor;
+    }
+
+    @Override
+    public Health health() {
+        Runtime runtime = Runtime.getRuntime();
+        Map<String, Object> components = new LinkedHashMap<>();
+        memoryGovernor.getComponentBytes().forEach((name, bytes) -> components.put(name, (bytes + KB - 1) / KB));
+
+        return Health.up()
+                .withDetail("pressure", memoryGovernor.getLevel().name())
+                .withDetail("oldGenAfterGcPercent", Math.round(memoryGovernor.getOccupancy() * 100))
+                .withDetail("heapUsedMb", (runtime.totalMemory() - runtime.freeMemory()) / MB)
+                .withDetail("heapMaxMb", runtime.maxMemory() / MB)
+                .withDetail("componentsKb", components)
+                .build();
+    }
+}
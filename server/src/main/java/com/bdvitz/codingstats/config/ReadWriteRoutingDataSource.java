@@ -0,0 +1,104 @@
+package com.bdvitz.codingstats.config;
+
+import com.bdvitz.codingstats.service.ReadOnlyTransactions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out connections from the read pool inside ReadOnlyTransactions.execute() and from the
+ * primary pool everywhere else.
+ *
+ * If the read pool can't supply a connection (replica down or unreachable) the read falls back to
+ * the primary. After failureThreshold consecutive failures reads skip the read pool for retryAfterMs,
+ * so they don't each wait out the read pool's connection timeout.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    public enum Route { PRIMARY, READ, FALLBACK }
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final DataSource read;
+    private final int failureThreshold;
+    private final long retryAfterMs;
+
+    private final AtomicInteger consecutiveReadFailures = new AtomicInteger();
+    private volatile long readRetryAt;
+
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong readConnections = new AtomicLong();
+    private final AtomicLong fallbackConnections = new AtomicLong();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource read, int failureThreshold, long retryAfterMs) {
+        this.primary = primary;
+        this.read = read;
+        this.failureThreshold = failureThreshold;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadOnlyTransactions.isActive()) {
+            primaryConnections.incrementAndGet();
+            return primary.getConnection();
+        }
+
+        if (System.currentTimeMillis() >= readRetryAt) {
+            try {
+                Connection connection = read.getConnection();
+                if (consecutiveReadFailures.getAndSet(0) >= failureThreshold) {
+                    logger.info("Read pool is available again");
+                }
+                readConnections.incrementAndGet();
+                return connection;
+            } catch (SQLException e) {
+                int failures = consecutiveReadFailures.incrementAndGet();
+                if (failures >= failureThreshold) {
+                    readRetryAt = System.currentTimeMillis() + retryAfterMs;
+                    logger.warn("Read pool failed {} times ({}), sending reads to the primary for {} ms",
+                            failures, e.getMessage(), retryAfterMs);
+                } else {
+                    logger.warn("Read pool unavailable ({}), falling back to the primary", e.getMessage());
+                }
+            }
+        }
+
+        fallbackConnections.incrementAndGet();
+        return primary.getConnection();
+    }
+
+    /**
+     * Not supported: both pools connect with their configured credentials (Hikari rejects this call too)
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Connections use the pools' configured credentials");
+    }
+
+    /**
+     * Whether the last attempt to use the read pool succeeded (or none failed yet)
+     */
+    public boolean isReadPoolAvailable() {
+        return consecutiveReadFailures.get() == 0;
+    }
+
+    /**
+     * Connections handed out by route since startup
+     */
+    public long getConnectionCount(Route route) {
+        return switch (route) {
+            case PRIMARY -> primaryConnections.get();
+            case READ -> readConnections.get();
+            case FALLBACK -> fallbackConnections.get();
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.bdvitz.codingstats.config;
+
+import com.bdvitz.codingstats.controller.SnapshotController;
+import com.bdvitz.codingstats.model.ChessDailyRating;
+import com.bdvitz.codingstats.model.ChessStat;
+import com.bdvitz.codingstats.repository.ChessDailyRatingRepository;
+import com.bdvitz.codingstats.repository.ChessStatRepository;
+import com.bdvitz.codingstats.service.ChessHistoryService;
+import com.bdvitz.codingstats.service.ChessStatsService;
+import com.bdvitz.codingstats.service.PlayerRegistry;
+import com.bdvitz.codingstats.service.RequestLane;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Optional warm-up run on ApplicationReadyEvent so the first visitor after a Railway
+ * wake-up doesn't pay for lazy bean creation, Hikari connection setup, the first
+ * daily_ratings scan and cold JSON serialization paths.
+ *
+ * Spring Boot publishes ReadinessState.ACCEPTING_TRAFFIC only after ApplicationReadyEvent
+ * listeners return, so /actuator/health/readiness stays OUT_OF_SERVICE until this finishes.
+ * Failures are logged and never block startup.
+ */
+@Component
+@ConditionalOnProperty(name = "chess.warmup.enabled", havingValue = "true")
+public class StartupWarmup {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final ApplicationContext applicationContext;
+    private final ObjectProvider<DataSource> dataSource;
+    private final ObjectMapper objectMapper;
+
+    @Value("${chess.username}")
+    private String chessUsername;
+
+    @Value("${chess.warmup.iterations:3}")
+    private int iterations;
+
+    public StartupWarmup(
+            ApplicationContext applicationContext,
+            ObjectProvider<DataSource> dataSource,
+            ObjectMapper objectMapper) {
+        this.applicationContext = applicationContext;
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        // Any Chess.com call made while warming up (e.g. filling in the current month) queues behind real traffic
+        RequestLane.run(RequestLane.BACKGROUND, this::runSteps);
+    }
+
+    private void runSteps() {
+        long start = System.currentTimeMillis();
+        logger.info("Starting warm-up for stored user: {}", chessUsername);
+
+        step("initialize controllers and services", () -> {
+            applicationContext.getBeansWithAnnotation(RestController.class);
+            applicationContext.getBean(ChessStatsService.class);
+            applicationContext.getBean(ChessHistoryService.class);
+        });
+
+        step("open connection pool", () -> {
+            DataSource ds = dataSource.getIfAvailable();
+            if (ds != null) {
+                try (Connection connection = ds.getConnection()) {
+                    connection.isValid(2);
+                }
+            }
+        });
+
+        step("load stored user data and serialize responses", () -> {
+            ChessStatsService chessStatsService = applicationContext.getBean(ChessStatsService.class);
+            ChessHistoryService chessHistoryService = applicationContext.getBean(ChessHistoryService.class);
+            ChessDailyRatingRepository dailyRatingRepository = applicationContext.getBean(ChessDailyRatingRepository.class);
+            ChessStatRepository chessStatRepository = applicationContext.getBean(ChessStatRepository.class);
+            PlayerRegistry playerRegistry = applicationContext.getBean(PlayerRegistry.class);
+            SnapshotController snapshotController = applicationContext.getBean(SnapshotController.class);
+            LocalDate now = LocalDate.now(ZoneOffset.UTC);
+
+            // Only the stored paths: for a user missing from the database these would call Chess.com
+            Optional<Integer> playerId = playerRegistry.findId(chessUsername);
+            boolean hasHistory = playerId.map(dailyRatingRepository::existsByPlayerId).orElse(false);
+            boolean hasStats = chessStatRepository.findByUsername(chessUsername).isPresent();
+
+            // Repeat the hot paths a few times so the JIT compiles them before real traffic
+            for (int i = 0; i < iterations; i++) {
+                objectMapper.writeValueAsBytes(snapshotController.generateSnapshot().getBody());
+
+                if (hasHistory) {
+                    List<ChessDailyRating> history = dailyRatingRepository.findByPlayerIdOrderByDateAsc(playerId.get());
+                    objectMapper.writeValueAsBytes(history);
+
+                    List<ChessDailyRating> month = chessHistoryService.getMonthHistory(
+                            chessUsername, now.getYear(), now.getMonthValue());
+                    objectMapper.writeValueAsBytes(month);
+                }
+                if (hasStats) {
+                    ChessStat chessStat = chessStatsService.getCurrentStats(chessUsername);
+                    objectMapper.writeValueAsBytes(chessStat);
+                }
+            }
+        });
+
+        logger.info("Warm-up completed in {} ms, accepting traffic", System.currentTimeMillis() - start);
+    }
+
+    private void step(String description, WarmupStep warmupStep) {
+        long start = System.currentTimeMillis();
+        try {
+            warmupStep.run();
+            logger.info("Warm-up step '{}' took {} ms", description, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.warn("Warm-up step '{}' failed: {}", description, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep {
+        void run() throws Exception;
+    }
+}
@@ -1,20 +1,26 @@
 package com.bdvitz.codingstats.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.Arrays;
 
 @Configuration
-public class WebConfig {
+public class WebConfig implements WebMvcConfigurer {
 
     @Value("${cors.allowed.origins}")
     private String allowedOrigins;
 
+    @Autowired
+    private AdmissionControlInterceptor admissionControlInterceptor;
+
     @Bean
     public CorsFilter corsFilter() {
         CorsConfiguration config = new CorsConfiguration();
@@ -22,10 +28,20 @@ public class WebConfig {
         config.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
         config.setAllowedHeaders(Arrays.asList("*"));
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        // Staleness headers must be exposed for the browser client to read them
+        config.setExposedHeaders(Arrays.asList("Age", "X-Data-Stale", "Retry-After"));
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
         
         return new CorsFilter(source);
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Streams hold their connection without a thread, and job polling is a map lookup
+        registry.addInterceptor(admissionControlInterceptor)
+                .addPathPatterns("/api/**")
+                .excludePathPatterns("/api/chess/stream", "/api/jobs/**");
+    }
 }
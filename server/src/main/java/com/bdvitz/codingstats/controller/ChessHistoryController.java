@@ -1,10 +1,16 @@
 package com.bdvitz.codingstats.controller;
 
 import com.bdvitz.codingstats.model.ChessDailyRating;
+import com.bdvitz.codingstats.model.RatingPage;
 import com.bdvitz.codingstats.service.ChessHistoryService;
+import com.bdvitz.codingstats.service.ChessStatsService;
+import com.bdvitz.codingstats.service.RefreshJobService;
+import com.bdvitz.codingstats.service.UpstreamUnavailableException;
+import com.bdvitz.codingstats.service.UserNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
@@ -14,10 +20,13 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/chess/history")
@@ -28,6 +37,12 @@ public class ChessHistoryController {
     @Autowired
     private ChessHistoryService chessHistoryService;
 
+    @Autowired
+    private RefreshJobService refreshJobService;
+
+    @Autowired
+    private ChessStatsService chessStatsService;
+
     /**
      * Get rating history for a month (checks database first, falls back to API)
      * GET /api/chess/history/month?username=chess.username&year=2023&month=5
@@ -46,6 +61,8 @@ public class ChessHistoryController {
             logger.info("Getting history for user: {} for {}/{}", username, year, month);
             List<ChessDailyRating> history = chessHistoryService.getMonthHistory(username, year, month);
             return ResponseEntity.ok(history);
+        } catch (UpstreamUnavailableException e) {
+            return serviceUnavailable(e);
         } catch (Exception e) {
             logger.error("Error getting month history", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -55,6 +72,7 @@ public class ChessHistoryController {
 
     /**
      * Fetch and update rating history for a month from Chess.com API
+     * Runs as a background job: returns 202 with the job, poll GET /api/jobs/{id} for the result
      * POST /api/chess/history/refresh?username=chess.username&year=2023&month=5
      */
     @PostMapping("/refresh")
@@ -68,9 +86,10 @@ public class ChessHistoryController {
                         .body(Map.of("error", "Month must be between 1 and 12"));
             }
 
-            logger.info("Refreshing history for user: {} for {}/{}", username, year, month);
-            List<ChessDailyRating> history = chessHistoryService.fetchAndUpdateMonthHistory(username, year, month);
-            return ResponseEntity.ok(history);
+            logger.info("Submitting history refresh for user: {} for {}/{}", username, year, month);
+            return JobController.accepted(refreshJobService.submitHistoryRefresh(username, year, month));
+        } catch (RejectedExecutionException e) {
+            return JobController.rejected(e);
         } catch (Exception e) {
             logger.error("Error refreshing month history", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -96,6 +115,8 @@ public class ChessHistoryController {
             logger.info("Fetching guest history for user: {} for {}/{}", username, year, month);
             List<ChessDailyRating> history = chessHistoryService.fetchMonthHistory(username, year, month);
             return ResponseEntity.ok(history);
+        } catch (UpstreamUnavailableException e) {
+            return serviceUnavailable(e);
         } catch (Exception e) {
             logger.error("Error fetching guest month history", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -103,6 +124,29 @@ public class ChessHistoryController {
         }
     }
 
+    /**
+     * Months that have games on Chess.com for a user (from the archives list), so clients can skip empty months
+     * GET /api/chess/history/months?username=example
+     */
+    @GetMapping("/months")
+    public ResponseEntity<?> getArchiveMonths(@RequestParam String username) {
+        try {
+            List<String> months = chessHistoryService.getArchiveMonths(username).stream()
+                    .map(YearMonth::toString)
+                    .toList();
+            return ResponseEntity.ok(Map.of("username", username, "months", months));
+        } catch (UserNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (UpstreamUnavailableException e) {
+            return serviceUnavailable(e);
+        } catch (Exception e) {
+            logger.error("Error getting archive months", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Get rating history for current month (defaults to current year/month)
      * GET /api/chess/history/current?username=chess.username
@@ -117,6 +161,8 @@ public class ChessHistoryController {
             logger.info("Getting current month history for user: {} ({}/{})", username, year, month);
             List<ChessDailyRating> history = chessHistoryService.getMonthHistory(username, year, month);
             return ResponseEntity.ok(history);
+        } catch (UpstreamUnavailableException e) {
+            return serviceUnavailable(e);
         } catch (Exception e) {
             logger.error("Error getting current month history", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -124,6 +170,39 @@ public class ChessHistoryController {
         }
     }
 
+    /**
+     * Stored daily ratings for one, several or all users between two dates, one page at a time,
+     * ordered by (player id, date). Pass the returned nextCursor as cursor to get the next page
+     * (null on the last page); page cost doesn't grow with depth, so large exports can be streamed.
+     * GET /api/chess/history/range?usernames=a,b&startDate=2023-01-01&endDate=2023-12-31&pageSize=1000&cursor=...
+     */
+    @GetMapping("/range")
+    public ResponseEntity<?> getRatingsRange(
+            @RequestParam(required = false) List<String> usernames,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize) {
+        try {
+            LocalDate start = startDate != null ? LocalDate.parse(startDate) : LocalDate.of(2000, 1, 1);
+            LocalDate end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now(ZoneOffset.UTC);
+            if (end.isBefore(start)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "endDate must not be before startDate"));
+            }
+
+            RatingPage page = chessHistoryService.getRatingsPage(usernames, start, end, cursor, pageSize);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error getting ratings range", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Health check endpoint
      * GET /api/chess/history/health
@@ -145,4 +224,14 @@ public class ChessHistoryController {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
         }
     }
+
+    /**
+     * 503 with Retry-After for Chess.com outages, so a guest month that couldn't be fetched isn't shown as empty
+     */
+    private ResponseEntity<Map<String, String>> serviceUnavailable(UpstreamUnavailableException e) {
+        long retryAfterMs = chessStatsService.getUpstreamRetryAfterMs(e.getEndpoint());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfterMs + 999) / 1000)))
+                .body(Map.of("error", "Server is currently offline"));
+    }
 }
@@ -1,10 +1,16 @@
 package com.bdvitz.codingstats.controller;
 
+import com.bdvitz.codingstats.model.BatchLookupResult;
+import com.bdvitz.codingstats.model.BatchUsernamesRequest;
 import com.bdvitz.codingstats.model.ChessStat;
+import com.bdvitz.codingstats.service.ChessBatchService;
 import com.bdvitz.codingstats.service.ChessStatsService;
+import com.bdvitz.codingstats.service.RefreshJobService;
+import com.bdvitz.codingstats.service.UpstreamUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
@@ -12,18 +18,29 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/chess/stats")
 public class ChessStatsController {
 
     private static final Logger logger = LoggerFactory.getLogger(ChessStatsController.class);
+    static final String STALE_HEADER = "X-Data-Stale";
 
     @Autowired
     private ChessStatsService chessStatsService;
+
+    @Autowired
+    private ChessBatchService chessBatchService;
+
+    @Autowired
+    private RefreshJobService refreshJobService;
     
     /**
      * Get current chess statistics for a user
@@ -34,7 +51,12 @@ public class ChessStatsController {
         try {
             logger.info("Fetching current stats for user: {}", username);
             ChessStat chessStat = chessStatsService.getCurrentStats(username);
-            return ResponseEntity.ok(chessStat);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.AGE, String.valueOf(chessStatsService.getAge(chessStat).getSeconds()))
+                    .header(STALE_HEADER, String.valueOf(chessStatsService.isStale(chessStat)))
+                    .body(chessStat);
+        } catch (UpstreamUnavailableException e) {
+            return serviceUnavailable(e);
         } catch (Exception e) {
             logger.error("Error fetching current stats", e);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -45,14 +67,16 @@ public class ChessStatsController {
     /**
      * Fetch and update current chess statistics from Chess.com
      * Does NOT update daily_ratings table (only updates chess_stats table)
+     * Runs as a background job: returns 202 with the job, poll GET /api/jobs/{id} for the result
      * POST /api/chess/stats/refresh?username=chess.username
      */
     @PostMapping("/refresh")
     public ResponseEntity<?> refreshStats(@RequestParam String username) {
         try {
-            logger.info("Refreshing current stats for user: {}", username);
-            ChessStat chessStat = chessStatsService.fetchAndUpdateCurrentStats(username);
-            return ResponseEntity.ok(chessStat);
+            logger.info("Submitting stats refresh for user: {}", username);
+            return JobController.accepted(refreshJobService.submitStatsRefresh(username));
+        } catch (RejectedExecutionException e) {
+            return JobController.rejected(e);
         } catch (Exception e) {
             logger.error("Error refreshing stats", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -70,6 +94,18 @@ public class ChessStatsController {
             logger.info("Fetching live stats for guest user: {}", username);
             ChessStat chessStat = chessStatsService.fetchCurrentStats(username);
             return ResponseEntity.ok(chessStat);
+        } catch (UpstreamUnavailableException e) {
+            // Serve last-known-good data, marked stale, instead of failing
+            Optional<ChessStat> lastKnown = chessStatsService.getLastKnownStats(username);
+            if (lastKnown.isEmpty()) {
+                return serviceUnavailable(e);
+            }
+            logger.info("Chess.com unavailable, serving last-known stats for guest user: {}", username);
+            ChessStat chessStat = lastKnown.get();
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.AGE, String.valueOf(chessStatsService.getAge(chessStat).getSeconds()))
+                    .header(STALE_HEADER, "true")
+                    .body(chessStat);
         } catch (Exception e) {
             logger.error("Error fetching guest current stats", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -99,20 +135,10 @@ public class ChessStatsController {
             logger.info("User not found: {}", username);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", "User does not exist on Chess.com"));
-        } catch (RuntimeException e) {
-            // Check if it's a service unavailability issue (timeout, network error)
-            if (e.getMessage() != null &&
-                (e.getMessage().contains("unavailable") ||
-                 e.getMessage().contains("timeout") ||
-                 e.getMessage().contains("null response"))) {
-                logger.error("Chess.com API unavailable for user: {}", username, e);
-                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                        .body(Map.of("error", "Server is currently offline"));
-            }
-            // Other runtime exceptions - return 500
-            logger.error("Error verifying user: {}", username, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Failed to verify user"));
+        } catch (UpstreamUnavailableException e) {
+            // Timeout, network error, or open circuit breaker
+            logger.error("Chess.com API unavailable for user: {}: {}", username, e.getMessage());
+            return serviceUnavailable(e);
         } catch (Exception e) {
             logger.error("Unexpected error verifying user: {}", username, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -120,6 +146,60 @@ public class ChessStatsController {
         }
     }
 
+    /**
+     * Get current stats for many users at once (stored users from database, others live)
+     * POST /api/chess/stats/batch  body: {"usernames": ["a", "b"]}
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> getBatchStats(@RequestBody BatchUsernamesRequest request) {
+        try {
+            if (request.getUsernames() == null || request.getUsernames().isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "At least one username is required"));
+            }
+
+            logger.info("Fetching batch stats for {} users", request.getUsernames().size());
+            List<BatchLookupResult> results = chessBatchService.getStats(request.getUsernames());
+            return ResponseEntity.ok(Map.of("results", results, "count", results.size()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return batchRejected(e);
+        } catch (Exception e) {
+            logger.error("Error fetching batch stats", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Verify many Chess.com users at once
+     * POST /api/chess/stats/verify/batch  body: {"usernames": ["a", "b"]}
+     */
+    @PostMapping("/verify/batch")
+    public ResponseEntity<?> verifyUsersBatch(@RequestBody BatchUsernamesRequest request) {
+        try {
+            if (request.getUsernames() == null || request.getUsernames().isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "At least one username is required"));
+            }
+
+            logger.info("Verifying batch of {} Chess.com users", request.getUsernames().size());
+            List<BatchLookupResult> results = chessBatchService.verifyUsers(request.getUsernames());
+            return ResponseEntity.ok(Map.of("results", results, "count", results.size()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return batchRejected(e);
+        } catch (Exception e) {
+            logger.error("Error verifying batch of users", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to verify users"));
+        }
+    }
+
     /**
      * Health check endpoint
      * GET /api/chess/stats/health
@@ -134,6 +214,7 @@ public class ChessStatsController {
             Map<String, String> response = new HashMap<>();
             response.put("status", "up");
             response.put("service", "Chess Stats API");
+            response.put("chessCom", chessStatsService.isUpstreamAvailable() ? "available" : "degraded");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Health check failed", e);
@@ -143,4 +224,23 @@ public class ChessStatsController {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
         }
     }
+
+    /**
+     * 503 for a batch turned away under memory pressure; the governor re-checks every few seconds
+     */
+    private ResponseEntity<Map<String, String>> batchRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    /**
+     * 503 with Retry-After for Chess.com outages ("Server is currently offline" is what the client expects)
+     */
+    private ResponseEntity<Map<String, String>> serviceUnavailable(UpstreamUnavailableException e) {
+        long retryAfterMs = chessStatsService.getUpstreamRetryAfterMs(e.getEndpoint());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfterMs + 999) / 1000)))
+                .body(Map.of("error", "Server is currently offline"));
+    }
 }
@@ -0,0 +1,61 @@
+package com.bdvitz.codingstats.controller;
+
+import com.bdvitz.codingstats.service.ChessStatsService;
+import com.bdvitz.codingstats.service.RatingStreamService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/chess")
+public class ChessStreamController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChessStreamController.class);
+
+    @Autowired
+    private RatingStreamService ratingStreamService;
+
+    @Autowired
+    private ChessStatsService chessStatsService;
+
+    /**
+     * Live updates for a user as server-sent events, pushed whenever stats or daily ratings are written
+     * Events: "stats" (ChessStat), "ratings" (list of ChessDailyRating); a "stats" event with the
+     * last known stats is sent right after connecting. Never calls Chess.com.
+     * GET /api/chess/stream?username=chess.username
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<SseEmitter> stream(@RequestParam String username) {
+        if (username.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        SseEmitter emitter;
+        try {
+            emitter = ratingStreamService.subscribe(username);
+        } catch (IllegalStateException e) {
+            // A non-200 response stops EventSource from reconnecting in a tight loop
+            logger.warn("Rejecting stream subscription for {}: {}", username, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+
+        try {
+            chessStatsService.getLastKnownStats(username).ifPresent(chessStat ->
+                    ratingStreamService.sendTo(username, emitter, RatingStreamService.STATS_EVENT, chessStat));
+        } catch (Exception e) {
+            // The stream is still useful without the initial state
+            logger.warn("Could not load initial stats for stream of {}: {}", username, e.getMessage());
+        }
+        return ResponseEntity.ok(emitter);
+    }
+}
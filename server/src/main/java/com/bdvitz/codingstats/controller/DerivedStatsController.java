@@ -0,0 +1,72 @@
+package com.bdvitz.codingstats.controller;
+
+import com.bdvitz.codingstats.model.PlayerDerivedStats;
+import com.bdvitz.codingstats.service.DerivedStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/chess/derived")
+public class DerivedStatsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DerivedStatsController.class);
+
+    @Autowired
+    private DerivedStatsService derivedStatsService;
+
+    /**
+     * Get derived statistics (peaks/lows, streaks, yearly gains, days played) for a stored user
+     * Single-row lookup; the record is kept up to date as daily ratings are written
+     * GET /api/chess/derived?username=chess.username
+     */
+    @GetMapping
+    public ResponseEntity<?> getDerivedStats(@RequestParam String username) {
+        try {
+            Optional<PlayerDerivedStats> stats = derivedStatsService.getDerivedStats(username);
+            if (stats.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "No rating history stored for " + username));
+            }
+            return ResponseEntity.ok(stats.get());
+        } catch (Exception e) {
+            logger.error("Error getting derived stats", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Rebuild derived statistics from the full history for one user (or every stored user)
+     * and report whether the incrementally maintained records were consistent
+     * POST /api/chess/derived/rebuild?username=chess.username
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild(@RequestParam(required = false) String username) {
+        try {
+            List<Map<String, Object>> results = username != null && !username.isBlank()
+                    ? List.of(derivedStatsService.rebuild(username))
+                    : derivedStatsService.rebuildAll();
+            long inconsistent = results.stream()
+                    .filter(result -> !Boolean.TRUE.equals(result.get("consistent")))
+                    .count();
+            logger.info("Rebuilt derived stats for {} users, {} inconsistent", results.size(), inconsistent);
+            return ResponseEntity.ok(Map.of("results", results, "count", results.size(), "inconsistent", inconsistent));
+        } catch (Exception e) {
+            logger.error("Error rebuilding derived stats", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.bdvitz.codingstats.controller;
+
+import com.bdvitz.codingstats.service.BulkImportService;
+import com.bdvitz.codingstats.service.ImportInProgressException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Bulk import endpoints for seeding or restoring the database from files.
+ * The request body is streamed straight into the database, so files of any size can be posted
+ * (send gzip with Content-Encoding: gzip). Only registered when chess.import.enabled=true.
+ */
+@RestController
+@RequestMapping("/api/import")
+@Profile("!embedded")
+@ConditionalOnProperty(name = "chess.import.enabled", havingValue = "true")
+public class ImportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportController.class);
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    /**
+     * Import a snapshot file as produced by /api/snapshot/generate (history and current stats)
+     * POST /api/import/snapshot
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<?> importSnapshot(HttpServletRequest request) {
+        try (InputStream body = body(request)) {
+            return ResponseEntity.ok(bulkImportService.importSnapshot(body));
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
+
+    /**
+     * Import daily rating history as NDJSON, one {"username", "date", "rapidRating", ...} object per line
+     * POST /api/import/history
+     */
+    @PostMapping("/history")
+    public ResponseEntity<?> importHistory(HttpServletRequest request) {
+        try (InputStream body = body(request)) {
+            return ResponseEntity.ok(bulkImportService.importHistory(body));
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
+
+    private static InputStream body(HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        return "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))
+                ? new GZIPInputStream(body, 64 * 1024)
+                : body;
+    }
+
+    private static ResponseEntity<Map<String, String>> failed(Exception e) {
+        if (e instanceof IllegalArgumentException || e instanceof JsonProcessingException) {
+            logger.warn("Rejected import: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (e instanceof ImportInProgressException) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+        logger.error("Import failed", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Import failed: " + e.getMessage()));
+    }
+}
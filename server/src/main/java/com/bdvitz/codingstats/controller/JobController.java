@@ -0,0 +1,60 @@
+package com.bdvitz.codingstats.controller;
+
+import com.bdvitz.codingstats.model.RefreshJob;
+import com.bdvitz.codingstats.service.RefreshJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+
+    // Suggested delay before polling a job or retrying a rejected submission
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @Autowired
+    private RefreshJobService refreshJobService;
+
+    /**
+     * Get the status of a refresh job (result is included once it has succeeded)
+     * GET /api/jobs/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        return refreshJobService.getJob(id)
+                .<ResponseEntity<?>>map(job -> job.isFinished()
+                        ? ResponseEntity.ok(job)
+                        : ResponseEntity.ok().header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).body(job))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Job not found or expired")));
+    }
+
+    /**
+     * 202 response for a submitted job, pointing at its status URL
+     */
+    static ResponseEntity<RefreshJob> accepted(RefreshJob job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(job);
+    }
+
+    /**
+     * 503 response when a job was not accepted (queue full or memory pressure critical)
+     */
+    static ResponseEntity<Map<String, String>> rejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(Map.of("error", e.getMessage()));
+    }
+}
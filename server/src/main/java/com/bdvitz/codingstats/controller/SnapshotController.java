@@ -1,12 +1,13 @@
 package com.bdvitz.codingstats.controller;
 
-import com.bdvitz.codingstats.model.ChessDailyRating;
-import com.bdvitz.codingstats.model.ChessStat;
-import com.bdvitz.codingstats.repository.ChessDailyRatingRepository;
-import com.bdvitz.codingstats.repository.ChessStatRepository;
+import com.bdvitz.codingstats.model.RatingPage;
+import com.bdvitz.codingstats.service.ChessHistoryService;
+import com.bdvitz.codingstats.service.SnapshotPublisher;
+import com.bdvitz.codingstats.service.SnapshotService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -26,17 +27,20 @@ public class SnapshotController {
 
     private static final Logger logger = LoggerFactory.getLogger(SnapshotController.class);
 
-    private final ChessStatRepository chessStatRepository;
-    private final ChessDailyRatingRepository chessDailyRatingRepository;
+    private final ChessHistoryService chessHistoryService;
+    private final SnapshotService snapshotService;
+    private final SnapshotPublisher snapshotPublisher;
 
     @Value("${chess.username}")
     private String chessUsername;
 
     public SnapshotController(
-            ChessStatRepository chessStatRepository,
-            ChessDailyRatingRepository chessDailyRatingRepository) {
-        this.chessStatRepository = chessStatRepository;
-        this.chessDailyRatingRepository = chessDailyRatingRepository;
+            ChessHistoryService chessHistoryService,
+            SnapshotService snapshotService,
+            SnapshotPublisher snapshotPublisher) {
+        this.chessHistoryService = chessHistoryService;
+        this.snapshotService = snapshotService;
+        this.snapshotPublisher = snapshotPublisher;
     }
 
     /**
@@ -56,22 +60,8 @@ public class SnapshotController {
         logger.info("Generating snapshot for stored user: {}", chessUsername);
 
         try {
-            Map<String, Object> snapshot = new HashMap<>();
-
-            // Get current stats
-            ChessStat currentStats = chessStatRepository.findByUsername(chessUsername)
-                    .orElse(null);
-
-            // Get all historical data since June 9, 2020
-            LocalDate startDate = LocalDate.of(2020, 6, 9);
-            LocalDate endDate = LocalDate.now();
-            List<ChessDailyRating> historicalData = chessDailyRatingRepository
-                    .findByUsernameAndDateBetween(chessUsername, startDate, endDate);
-
-            snapshot.put("currentStats", currentStats);
-            snapshot.put("historicalData", historicalData);
-            snapshot.put("generatedAt", System.currentTimeMillis());
-            snapshot.put("username", chessUsername);
+            Map<String, Object> snapshot = snapshotService.generate();
+            List<?> historicalData = (List<?>) snapshot.get("historicalData");
 
             logger.info("Snapshot generated successfully with {} historical records", historicalData.size());
             return ResponseEntity.ok(snapshot);
@@ -83,28 +73,50 @@ public class SnapshotController {
     }
 
     /**
-     * Get snapshot for a specific date range.
+     * Publish the snapshot as static files now instead of waiting for the nightly update
+     * (see SnapshotPublisher). Returns the manifest; "changed" is false if the data hadn't changed.
+     * POST /api/snapshot/publish
+     */
+    @PostMapping("/publish")
+    public ResponseEntity<?> publishSnapshot() {
+        if (!snapshotPublisher.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Snapshot publishing is disabled (set chess.snapshot.publish.directory)"));
+        }
+        try {
+            return ResponseEntity.ok(snapshotPublisher.publish());
+        } catch (Exception e) {
+            logger.error("Error publishing snapshot", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Publish failed: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Get snapshot for a specific date range, one page at a time.
      * Useful for updating the snapshot incrementally.
+     * Pass the returned nextCursor as cursor to get the next page; nextCursor is null on the last page.
      */
     @GetMapping("/range")
     public ResponseEntity<Map<String, Object>> getSnapshotRange(
             @RequestParam(required = false) String startDate,
-            @RequestParam(required = false) String endDate) {
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize) {
 
         logger.info("Generating snapshot range for user: {} from {} to {}", chessUsername, startDate, endDate);
 
         try {
-            LocalDate start = startDate != null ? LocalDate.parse(startDate) : LocalDate.of(2020, 6, 9);
+            LocalDate start = startDate != null ? LocalDate.parse(startDate) : SnapshotService.HISTORY_START;
             LocalDate end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
 
-            List<ChessDailyRating> historicalData = chessDailyRatingRepository
-                    .findByUsernameAndDateBetween(chessUsername, start, end);
+            RatingPage page = chessHistoryService.getRatingsPage(List.of(chessUsername), start, end, cursor, pageSize);
 
             Map<String, Object> snapshot = new HashMap<>();
-            snapshot.put("historicalData", historicalData);
+            snapshot.put("historicalData", page.getRatings());
             snapshot.put("startDate", start);
             snapshot.put("endDate", end);
-            snapshot.put("count", historicalData.size());
+            snapshot.put("count", page.getCount());
+            snapshot.put("nextCursor", page.getNextCursor());
 
             return ResponseEntity.ok(snapshot);
 
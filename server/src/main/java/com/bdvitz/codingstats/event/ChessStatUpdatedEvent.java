@@ -0,0 +1,23 @@
+package com.bdvitz.codingstats.event;
+
+import com.bdvitz.codingstats.model.ChessStat;
+
+/**
+ * Published after current stats for a user have been written to storage
+ */
+public class ChessStatUpdatedEvent {
+
+    private final ChessStat chessStat;
+
+    public ChessStatUpdatedEvent(ChessStat chessStat) {
+        this.chessStat = chessStat;
+    }
+
+    public String getUsername() {
+        return chessStat.getUsername();
+    }
+
+    public ChessStat getChessStat() {
+        return chessStat;
+    }
+}
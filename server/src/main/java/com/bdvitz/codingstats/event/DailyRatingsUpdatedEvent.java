@@ -0,0 +1,28 @@
+package com.bdvitz.codingstats.event;
+
+import com.bdvitz.codingstats.model.ChessDailyRating;
+
+import java.util.List;
+
+/**
+ * Published after daily ratings for a user have been written to storage.
+ * Ratings are the stored (merged) rows, sorted by date.
+ */
+public class DailyRatingsUpdatedEvent {
+
+    private final String username;
+    private final List<ChessDailyRating> ratings;
+
+    public DailyRatingsUpdatedEvent(String username, List<ChessDailyRating> ratings) {
+        this.username = username;
+        this.ratings = ratings;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public List<ChessDailyRating> getRatings() {
+        return ratings;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bdvitz.codingstats.event;
+
+import java.time.LocalDate;
+
+/**
+ * Published when another instance reports that it wrote data for a user (see ClusterCoordinator).
+ * The data is already in the database; listeners only drop or refresh what they keep in memory.
+ */
+public class RemoteDataChangedEvent {
+
+    public enum Type { STATS, RATINGS }
+
+    private final Type type;
+    private final String username;
+    // Date range of the written ratings (RATINGS only)
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    public RemoteDataChangedEvent(Type type, String username, LocalDate startDate, LocalDate endDate) {
+        this.type = type;
+        this.username = username;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+}
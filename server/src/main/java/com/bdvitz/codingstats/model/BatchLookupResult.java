@@ -0,0 +1,83 @@
+package com.bdvitz.codingstats.model;
+
+/**
+ * Per-user entry in a batch stats or verification response
+ */
+public class BatchLookupResult {
+
+    public static final String STATUS_OK = "ok";
+    public static final String STATUS_NOT_FOUND = "not_found";
+    public static final String STATUS_TIMEOUT = "timeout";
+    public static final String STATUS_UNAVAILABLE = "unavailable";
+    public static final String STATUS_ERROR = "error";
+
+    public static final String SOURCE_DATABASE = "database";
+    public static final String SOURCE_CHESS_COM = "chess.com";
+
+    private String username;
+    private String status;
+    private String source;
+    private Object data;
+    private String error;
+
+    // Default constructor
+    public BatchLookupResult() {
+    }
+
+    public BatchLookupResult(String username, String status, String source, Object data, String error) {
+        this.username = username;
+        this.status = status;
+        this.source = source;
+        this.data = data;
+        this.error = error;
+    }
+
+    public static BatchLookupResult ok(String username, String source, Object data) {
+        return new BatchLookupResult(username, STATUS_OK, source, data, null);
+    }
+
+    public static BatchLookupResult failed(String username, String status, String error) {
+        return new BatchLookupResult(username, status, null, null, error);
+    }
+
+    // Getters and Setters
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public Object getData() {
+        return data;
+    }
+
+    public void setData(Object data) {
+        this.data = data;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
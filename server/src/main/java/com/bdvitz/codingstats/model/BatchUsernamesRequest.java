@@ -0,0 +1,26 @@
+package com.bdvitz.codingstats.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchUsernamesRequest {
+
+    private List<String> usernames = new ArrayList<>();
+
+    // Default constructor
+    public BatchUsernamesRequest() {
+    }
+
+    public BatchUsernamesRequest(List<String> usernames) {
+        this.usernames = usernames;
+    }
+
+    // Getters and Setters
+    public List<String> getUsernames() {
+        return usernames;
+    }
+
+    public void setUsernames(List<String> usernames) {
+        this.usernames = usernames;
+    }
+}
@@ -1,18 +1,26 @@
 package com.bdvitz.codingstats.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 
 @Entity
 @Table(name = "daily_ratings", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"username", "date"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"player_id", "date"}))
+@EntityListeners(PlayerNameListener.class)
 public class ChessDailyRating {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(nullable = false)
+    // References players.id; rows store the integer instead of the username
+    @JsonIgnore
+    @Column(name = "player_id", nullable = false)
+    private Integer playerId;
+
+    // Canonical username of playerId, filled in on load by PlayerNameListener
+    @Transient
     private String username;
     
     @Column(nullable = false)
@@ -46,6 +54,14 @@ public class ChessDailyRating {
         this.id = id;
     }
     
+    public Integer getPlayerId() {
+        return playerId;
+    }
+    
+    public void setPlayerId(Integer playerId) {
+        this.playerId = playerId;
+    }
+    
     public String getUsername() {
         return username;
     }
@@ -1,6 +1,7 @@
 package com.bdvitz.codingstats.model;
 
 import jakarta.persistence.*;
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
@@ -35,15 +36,21 @@ public class ChessStat {
     
     @Column(name = "last_updated")
     private LocalDate lastUpdated;
+
+    // Exact fetch time from Chess.com, used to decide when a stored row is stale
+    @Column(name = "fetched_at")
+    private Instant fetchedAt;
     
     // Constructors
     public ChessStat() {
         this.lastUpdated = LocalDate.now();
+        this.fetchedAt = Instant.now();
     }
     
     public ChessStat(String username) {
         this.username = username;
         this.lastUpdated = LocalDate.now();
+        this.fetchedAt = Instant.now();
     }
     
     // Getters and Setters
@@ -135,8 +142,17 @@ public class ChessStat {
         this.lastUpdated = lastUpdated;
     }
     
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+    
+    public void setFetchedAt(Instant fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+    
     @PreUpdate
     public void preUpdate() {
         this.lastUpdated = LocalDate.now();
+        this.fetchedAt = Instant.now();
     }
 }
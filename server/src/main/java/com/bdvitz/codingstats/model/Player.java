@@ -0,0 +1,64 @@
+package com.bdvitz.codingstats.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * A stored Chess.com user. Daily ratings reference players by the integer id
+ * instead of repeating the username on every row.
+ */
+@Entity
+@Table(name = "players")
+public class Player {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    // Canonical (lowercased) Chess.com username; Chess.com usernames are case-insensitive
+    @Column(nullable = false, unique = true)
+    private String username;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    // Constructors
+    public Player() {
+    }
+
+    public Player(Integer id, String username) {
+        this.id = id;
+        this.username = username;
+        this.createdAt = Instant.now();
+    }
+
+    public static String canonicalName(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
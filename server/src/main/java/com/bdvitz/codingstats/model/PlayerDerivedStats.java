@@ -0,0 +1,212 @@
+package com.bdvitz.codingstats.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.TreeMap;
+
+/**
+ * Statistics derived from a user's daily ratings, maintained incrementally as ratings are written
+ * so clients don't have to download and scan the whole history
+ */
+@Entity
+@Table(name = "player_derived_stats")
+public class PlayerDerivedStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String username;
+
+    // Days with at least one rated game
+    @Column(name = "days_played")
+    private int daysPlayed;
+
+    @Column(name = "first_date")
+    private LocalDate firstDate;
+
+    @Column(name = "last_date")
+    private LocalDate lastDate;
+
+    // Consecutive days played ending at lastDate
+    @Column(name = "current_streak")
+    private int currentStreak;
+
+    @Column(name = "longest_streak")
+    private int longestStreak;
+
+    @Column(name = "longest_streak_end")
+    private LocalDate longestStreakEnd;
+
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "peak", column = @Column(name = "rapid_peak")),
+            @AttributeOverride(name = "peakDate", column = @Column(name = "rapid_peak_date")),
+            @AttributeOverride(name = "low", column = @Column(name = "rapid_low")),
+            @AttributeOverride(name = "lowDate", column = @Column(name = "rapid_low_date"))
+    })
+    private RatingExtremes rapid = new RatingExtremes();
+
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "peak", column = @Column(name = "blitz_peak")),
+            @AttributeOverride(name = "peakDate", column = @Column(name = "blitz_peak_date")),
+            @AttributeOverride(name = "low", column = @Column(name = "blitz_low")),
+            @AttributeOverride(name = "lowDate", column = @Column(name = "blitz_low_date"))
+    })
+    private RatingExtremes blitz = new RatingExtremes();
+
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "peak", column = @Column(name = "bullet_peak")),
+            @AttributeOverride(name = "peakDate", column = @Column(name = "bullet_peak_date")),
+            @AttributeOverride(name = "low", column = @Column(name = "bullet_low")),
+            @AttributeOverride(name = "lowDate", column = @Column(name = "bullet_low_date"))
+    })
+    private RatingExtremes bullet = new RatingExtremes();
+
+    // Year -> time class ("rapid", "blitz", "bullet") -> first/last rating that year
+    @Convert(converter = YearlyRatingsConverter.class)
+    @Column(name = "yearly", columnDefinition = "text")
+    private TreeMap<Integer, TreeMap<String, RatingSpan>> yearly = new TreeMap<>();
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    // Constructors
+    public PlayerDerivedStats() {
+    }
+
+    public PlayerDerivedStats(String username) {
+        this.username = username;
+    }
+
+    /**
+     * Current streak if the user played today or yesterday (UTC), otherwise 0
+     */
+    public int getActiveStreak() {
+        LocalDate yesterday = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        return lastDate != null && !lastDate.isBefore(yesterday) ? currentStreak : 0;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public int getDaysPlayed() {
+        return daysPlayed;
+    }
+
+    public void setDaysPlayed(int daysPlayed) {
+        this.daysPlayed = daysPlayed;
+    }
+
+    public LocalDate getFirstDate() {
+        return firstDate;
+    }
+
+    public void setFirstDate(LocalDate firstDate) {
+        this.firstDate = firstDate;
+    }
+
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    public void setLastDate(LocalDate lastDate) {
+        this.lastDate = lastDate;
+    }
+
+    public int getCurrentStreak() {
+        return currentStreak;
+    }
+
+    public void setCurrentStreak(int currentStreak) {
+        this.currentStreak = currentStreak;
+    }
+
+    public int getLongestStreak() {
+        return longestStreak;
+    }
+
+    public void setLongestStreak(int longestStreak) {
+        this.longestStreak = longestStreak;
+    }
+
+    public LocalDate getLongestStreakEnd() {
+        return longestStreakEnd;
+    }
+
+    public void setLongestStreakEnd(LocalDate longestStreakEnd) {
+        this.longestStreakEnd = longestStreakEnd;
+    }
+
+    public RatingExtremes getRapid() {
+        // Hibernate loads an embeddable whose columns are all null as null
+        if (rapid == null) {
+            rapid = new RatingExtremes();
+        }
+        return rapid;
+    }
+
+    public void setRapid(RatingExtremes rapid) {
+        this.rapid = rapid;
+    }
+
+    public RatingExtremes getBlitz() {
+        if (blitz == null) {
+            blitz = new RatingExtremes();
+        }
+        return blitz;
+    }
+
+    public void setBlitz(RatingExtremes blitz) {
+        this.blitz = blitz;
+    }
+
+    public RatingExtremes getBullet() {
+        if (bullet == null) {
+            bullet = new RatingExtremes();
+        }
+        return bullet;
+    }
+
+    public void setBullet(RatingExtremes bullet) {
+        this.bullet = bullet;
+    }
+
+    public TreeMap<Integer, TreeMap<String, RatingSpan>> getYearly() {
+        if (yearly == null) {
+            yearly = new TreeMap<>();
+        }
+        return yearly;
+    }
+
+    public void setYearly(TreeMap<Integer, TreeMap<String, RatingSpan>> yearly) {
+        this.yearly = yearly;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,24 @@
+package com.bdvitz.codingstats.model;
+
+import com.bdvitz.codingstats.service.PlayerRegistry;
+import jakarta.persistence.PostLoad;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Fills in ChessDailyRating.username from the player id after a row is loaded, from the
+ * PlayerRegistry cache rather than a join. Hibernate creates this listener through Spring.
+ */
+public class PlayerNameListener {
+
+    // Resolved lazily: the registry's repository needs the EntityManagerFactory this listener is part of
+    private final ObjectProvider<PlayerRegistry> playerRegistry;
+
+    public PlayerNameListener(ObjectProvider<PlayerRegistry> playerRegistry) {
+        this.playerRegistry = playerRegistry;
+    }
+
+    @PostLoad
+    public void resolveUsername(ChessDailyRating rating) {
+        rating.setUsername(playerRegistry.getObject().getUsername(rating.getPlayerId()));
+    }
+}
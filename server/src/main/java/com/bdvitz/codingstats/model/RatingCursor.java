@@ -0,0 +1,55 @@
+package com.bdvitz.codingstats.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in daily ratings ordered by (player id, date): the last row of the previous page.
+ * Serialized as an opaque URL-safe token so clients just pass back nextCursor.
+ */
+public class RatingCursor {
+
+    private final int playerId;
+    private final LocalDate date;
+
+    public RatingCursor(int playerId, LocalDate date) {
+        this.playerId = playerId;
+        this.date = date;
+    }
+
+    public static RatingCursor after(ChessDailyRating rating) {
+        return new RatingCursor(rating.getPlayerId(), rating.getDate());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by encode()
+     */
+    public static RatingCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new RatingCursor(Integer.parseInt(value.substring(0, separator)),
+                    LocalDate.parse(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String value = playerId + "|" + date;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+}
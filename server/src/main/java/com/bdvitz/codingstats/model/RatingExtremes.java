@@ -0,0 +1,67 @@
+package com.bdvitz.codingstats.model;
+
+import jakarta.persistence.Embeddable;
+
+import java.time.LocalDate;
+
+/**
+ * Peak and low rating for one time class, with the first date each was reached
+ */
+@Embeddable
+public class RatingExtremes {
+
+    private Integer peak;
+    private LocalDate peakDate;
+    private Integer low;
+    private LocalDate lowDate;
+
+    /**
+     * Fold in a rating; ratings must be applied in date order so ties keep the earlier date
+     */
+    public void include(Integer rating, LocalDate date) {
+        if (rating == null) {
+            return;
+        }
+        if (peak == null || rating > peak) {
+            peak = rating;
+            peakDate = date;
+        }
+        if (low == null || rating < low) {
+            low = rating;
+            lowDate = date;
+        }
+    }
+
+    // Getters and Setters
+    public Integer getPeak() {
+        return peak;
+    }
+
+    public void setPeak(Integer peak) {
+        this.peak = peak;
+    }
+
+    public LocalDate getPeakDate() {
+        return peakDate;
+    }
+
+    public void setPeakDate(LocalDate peakDate) {
+        this.peakDate = peakDate;
+    }
+
+    public Integer getLow() {
+        return low;
+    }
+
+    public void setLow(Integer low) {
+        this.low = low;
+    }
+
+    public LocalDate getLowDate() {
+        return lowDate;
+    }
+
+    public void setLowDate(LocalDate lowDate) {
+        this.lowDate = lowDate;
+    }
+}
@@ -0,0 +1,46 @@
+package com.bdvitz.codingstats.model;
+
+import java.util.List;
+
+/**
+ * One page of daily ratings in (username, date) order; nextCursor is null (omitted) on the last page
+ */
+public class RatingPage {
+
+    private List<ChessDailyRating> ratings;
+    private String nextCursor;
+
+    // Default constructor
+    public RatingPage() {
+    }
+
+    public RatingPage(List<ChessDailyRating> ratings, String nextCursor) {
+        this.ratings = ratings;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<ChessDailyRating> getRatings() {
+        return ratings;
+    }
+
+    public void setRatings(List<ChessDailyRating> ratings) {
+        this.ratings = ratings;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getCount() {
+        return ratings != null ? ratings.size() : 0;
+    }
+
+    public boolean isLastPage() {
+        return nextCursor == null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.bdvitz.codingstats.model;
+
+import java.time.LocalDate;
+
+/**
+ * First and last rating of one time class within a year
+ */
+public class RatingSpan {
+
+    private Integer first;
+    private LocalDate firstDate;
+    private Integer last;
+    private LocalDate lastDate;
+
+    /**
+     * Fold in a rating; ratings must be applied in date order
+     */
+    public void include(Integer rating, LocalDate date) {
+        if (rating == null) {
+            return;
+        }
+        if (first == null) {
+            first = rating;
+            firstDate = date;
+        }
+        last = rating;
+        lastDate = date;
+    }
+
+    public Integer getGain() {
+        return first != null && last != null ? last - first : null;
+    }
+
+    // Getters and Setters
+    public Integer getFirst() {
+        return first;
+    }
+
+    public void setFirst(Integer first) {
+        this.first = first;
+    }
+
+    public LocalDate getFirstDate() {
+        return firstDate;
+    }
+
+    public void setFirstDate(LocalDate firstDate) {
+        this.firstDate = firstDate;
+    }
+
+    public Integer getLast() {
+        return last;
+    }
+
+    public void setLast(Integer last) {
+        this.last = last;
+    }
+
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    public void setLastDate(LocalDate lastDate) {
+        this.lastDate = lastDate;
+    }
+}
@@ -0,0 +1,107 @@
+package com.bdvitz.codingstats.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A refresh from Chess.com submitted through the API and run in the background.
+ * Written by the job thread and read by status requests, hence the volatile fields.
+ */
+public class RefreshJob {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    public static final String TYPE_STATS = "stats";
+    public static final String TYPE_HISTORY = "history";
+
+    private final String id;
+    private final String type;
+    private final String username;
+    private final Integer year;
+    private final Integer month;
+    private final Instant submittedAt;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Object result;
+    private volatile String error;
+
+    public RefreshJob(String type, String username, Integer year, Integer month) {
+        this.id = UUID.randomUUID().toString();
+        this.type = type;
+        this.username = username;
+        this.year = year;
+        this.month = month;
+        this.submittedAt = Instant.now();
+    }
+
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public Integer getMonth() {
+        return month;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public void setResult(Object result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,44 @@
+package com.bdvitz.codingstats.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.TreeMap;
+
+/**
+ * Stores year -> time class -> RatingSpan as a JSON text column
+ */
+@Converter
+public class YearlyRatingsConverter implements AttributeConverter<TreeMap<Integer, TreeMap<String, RatingSpan>>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private static final TypeReference<TreeMap<Integer, TreeMap<String, RatingSpan>>> TYPE = new TypeReference<>() {};
+
+    @Override
+    public String convertToDatabaseColumn(TreeMap<Integer, TreeMap<String, RatingSpan>> yearly) {
+        try {
+            return yearly != null ? MAPPER.writeValueAsString(yearly) : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize yearly ratings", e);
+        }
+    }
+
+    @Override
+    public TreeMap<Integer, TreeMap<String, RatingSpan>> convertToEntityAttribute(String json) {
+        try {
+            return json != null ? MAPPER.readValue(json, TYPE) : new TreeMap<>();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to parse yearly ratings", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bdvitz.codingstats.repository;
+
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The CRUD methods the application uses, exposed selectively instead of inheriting all of JpaRepository,
+ * so the embedded storage backend implements exactly what callers can reach.
+ * Spring Data JPA backs these with its standard implementations.
+ */
+@NoRepositoryBean
+public interface BaseRepository<T, ID> extends Repository<T, ID> {
+
+    <S extends T> S save(S entity);
+
+    <S extends T> List<S> saveAll(Iterable<S> entities);
+
+    Optional<T> findById(ID id);
+
+    List<T> findAll();
+
+    long count();
+}
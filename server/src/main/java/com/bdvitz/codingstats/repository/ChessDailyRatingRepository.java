@@ -1,30 +1,66 @@
 package com.bdvitz.codingstats.repository;
 
 import com.bdvitz.codingstats.model.ChessDailyRating;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ChessDailyRatingRepository extends JpaRepository<ChessDailyRating, Long> {
+public interface ChessDailyRatingRepository extends BaseRepository<ChessDailyRating, Long> {
 
-    boolean existsByUsername(String username);
+    // Rows reference players by id; resolve usernames through PlayerRegistry
 
-    Optional<ChessDailyRating> findByUsernameAndDate(String username, LocalDate date);
+    boolean existsByPlayerId(Integer playerId);
+
+    @Query("SELECT DISTINCT d.playerId FROM ChessDailyRating d")
+    List<Integer> findDistinctPlayerIds();
+
+    Optional<ChessDailyRating> findByPlayerIdAndDate(Integer playerId, LocalDate date);
+
+    List<ChessDailyRating> findByPlayerIdAndDateIn(Integer playerId, Collection<LocalDate> dates);
     
-    List<ChessDailyRating> findByUsernameOrderByDateAsc(String username);
+    List<ChessDailyRating> findByPlayerIdOrderByDateAsc(Integer playerId);
     
-    @Query("SELECT d FROM ChessDailyRating d WHERE d.username = :username AND d.date >= :startDate ORDER BY d.date ASC")
-    List<ChessDailyRating> findByUsernameAndDateAfter(@Param("username") String username,
+    @Query("SELECT d FROM ChessDailyRating d WHERE d.playerId = :playerId AND d.date >= :startDate ORDER BY d.date ASC")
+    List<ChessDailyRating> findByPlayerIdAndDateAfter(@Param("playerId") Integer playerId,
                                                    @Param("startDate") LocalDate startDate);
 
-    @Query("SELECT d FROM ChessDailyRating d WHERE d.username = :username AND d.date BETWEEN :startDate AND :endDate ORDER BY d.date ASC")
-    List<ChessDailyRating> findByUsernameAndDateBetween(@Param("username") String username,
+    @Query("SELECT d FROM ChessDailyRating d WHERE d.playerId = :playerId AND d.date BETWEEN :startDate AND :endDate ORDER BY d.date ASC")
+    List<ChessDailyRating> findByPlayerIdAndDateBetween(@Param("playerId") Integer playerId,
                                                      @Param("startDate") LocalDate startDate,
                                                      @Param("endDate") LocalDate endDate);
+
+    // Keyset pages: seek on the (player_id, date) unique index, so every page costs the same.
+    // "playerId >= :afterPlayerId" is the index bound; the OR skips at most the rest of the cursor's player.
+
+    @Query("SELECT d FROM ChessDailyRating d WHERE d.playerId = :playerId AND d.date > :afterDate AND d.date <= :endDate ORDER BY d.date ASC")
+    List<ChessDailyRating> findPageByPlayerId(@Param("playerId") Integer playerId,
+                                             @Param("afterDate") LocalDate afterDate,
+                                             @Param("endDate") LocalDate endDate,
+                                             Limit limit);
+
+    @Query("SELECT d FROM ChessDailyRating d WHERE d.playerId >= :afterPlayerId " +
+           "AND (d.playerId > :afterPlayerId OR d.date > :afterDate) " +
+           "AND d.date BETWEEN :startDate AND :endDate ORDER BY d.playerId ASC, d.date ASC")
+    List<ChessDailyRating> findPageAfter(@Param("afterPlayerId") Integer afterPlayerId,
+                                        @Param("afterDate") LocalDate afterDate,
+                                        @Param("startDate") LocalDate startDate,
+                                        @Param("endDate") LocalDate endDate,
+                                        Limit limit);
+
+    @Query("SELECT d FROM ChessDailyRating d WHERE d.playerId IN :playerIds AND d.playerId >= :afterPlayerId " +
+           "AND (d.playerId > :afterPlayerId OR d.date > :afterDate) " +
+           "AND d.date BETWEEN :startDate AND :endDate ORDER BY d.playerId ASC, d.date ASC")
+    List<ChessDailyRating> findPageForPlayersAfter(@Param("playerIds") Collection<Integer> playerIds,
+                                                  @Param("afterPlayerId") Integer afterPlayerId,
+                                                  @Param("afterDate") LocalDate afterDate,
+                                                  @Param("startDate") LocalDate startDate,
+                                                  @Param("endDate") LocalDate endDate,
+                                                  Limit limit);
 }
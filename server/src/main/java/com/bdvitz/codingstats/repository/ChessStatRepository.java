@@ -1,12 +1,15 @@
 package com.bdvitz.codingstats.repository;
 
 import com.bdvitz.codingstats.model.ChessStat;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ChessStatRepository extends JpaRepository<ChessStat, Long> {
+public interface ChessStatRepository extends BaseRepository<ChessStat, Long> {
     Optional<ChessStat> findByUsername(String username);
+
+    List<ChessStat> findByUsernameIn(Collection<String> usernames);
 }
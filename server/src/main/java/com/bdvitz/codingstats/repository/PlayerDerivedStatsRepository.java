@@ -0,0 +1,11 @@
+package com.bdvitz.codingstats.repository;
+
+import com.bdvitz.codingstats.model.PlayerDerivedStats;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PlayerDerivedStatsRepository extends BaseRepository<PlayerDerivedStats, Long> {
+    Optional<PlayerDerivedStats> findByUsername(String username);
+}
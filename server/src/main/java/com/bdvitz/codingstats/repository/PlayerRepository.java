@@ -0,0 +1,23 @@
+package com.bdvitz.codingstats.repository;
+
+import com.bdvitz.codingstats.model.Player;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface PlayerRepository extends BaseRepository<Player, Integer> {
+
+    Optional<Player> findByUsername(String username);
+
+    // Safe against another instance registering the same player concurrently
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO players (username, created_at) VALUES (:username, now()) " +
+                   "ON CONFLICT (username) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("username") String username);
+}
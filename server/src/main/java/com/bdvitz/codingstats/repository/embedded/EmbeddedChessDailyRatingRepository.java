@@ -0,0 +1,179 @@
+package com.bdvitz.codingstats.repository.embedded;
+
+import com.bdvitz.codingstats.model.ChessDailyRating;
+import com.bdvitz.codingstats.model.Player;
+import com.bdvitz.codingstats.repository.ChessDailyRatingRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * ChessDailyRatingRepository backed by the per-user rating logs (embedded profile).
+ * Logs are named by username; player ids are mapped through EmbeddedPlayerRepository.
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedChessDailyRatingRepository extends EmbeddedRepositorySupport<ChessDailyRating, Long>
+        implements ChessDailyRatingRepository {
+
+    private final RatingLogStore ratingLogStore;
+    private final EmbeddedPlayerRepository playerRepository;
+
+    public EmbeddedChessDailyRatingRepository(RatingLogStore ratingLogStore, EmbeddedPlayerRepository playerRepository) {
+        this.ratingLogStore = ratingLogStore;
+        this.playerRepository = playerRepository;
+    }
+
+    @Override
+    public boolean existsByPlayerId(Integer playerId) {
+        return usernameOf(playerId).map(ratingLogStore::exists).orElse(false);
+    }
+
+    @Override
+    public List<Integer> findDistinctPlayerIds() {
+        return ratingLogStore.usernames().stream()
+                .flatMap(username -> playerRepository.findByUsername(username).stream())
+                .map(Player::getId)
+                .toList();
+    }
+
+    @Override
+    public Optional<ChessDailyRating> findByPlayerIdAndDate(Integer playerId, LocalDate date) {
+        return read(playerId, date, date).stream().findFirst();
+    }
+
+    @Override
+    public List<ChessDailyRating> findByPlayerIdAndDateIn(Integer playerId, Collection<LocalDate> dates) {
+        if (dates.isEmpty()) {
+            return List.of();
+        }
+        LocalDate start = dates.stream().min(LocalDate::compareTo).get();
+        LocalDate end = dates.stream().max(LocalDate::compareTo).get();
+        return read(playerId, start, end).stream()
+                .filter(rating -> dates.contains(rating.getDate()))
+                .toList();
+    }
+
+    @Override
+    public List<ChessDailyRating> findByPlayerIdOrderByDateAsc(Integer playerId) {
+        return read(playerId, LocalDate.MIN, LocalDate.MAX);
+    }
+
+    @Override
+    public List<ChessDailyRating> findByPlayerIdAndDateAfter(Integer playerId, LocalDate startDate) {
+        return read(playerId, startDate, LocalDate.MAX);
+    }
+
+    @Override
+    public List<ChessDailyRating> findByPlayerIdAndDateBetween(Integer playerId, LocalDate startDate, LocalDate endDate) {
+        return read(playerId, startDate, endDate);
+    }
+
+    @Override
+    public List<ChessDailyRating> findPageByPlayerId(Integer playerId, LocalDate afterDate, LocalDate endDate, Limit limit) {
+        return page(read(playerId, afterDate.plusDays(1), endDate), limit);
+    }
+
+    @Override
+    public List<ChessDailyRating> findPageAfter(Integer afterPlayerId, LocalDate afterDate,
+                                                LocalDate startDate, LocalDate endDate, Limit limit) {
+        return pageAcross(findDistinctPlayerIds(), afterPlayerId, afterDate, startDate, endDate, limit);
+    }
+
+    @Override
+    public List<ChessDailyRating> findPageForPlayersAfter(Collection<Integer> playerIds, Integer afterPlayerId,
+                                                          LocalDate afterDate, LocalDate startDate,
+                                                          LocalDate endDate, Limit limit) {
+        return pageAcross(playerIds, afterPlayerId, afterDate, startDate, endDate, limit);
+    }
+
+    private List<ChessDailyRating> pageAcross(Collection<Integer> playerIds, Integer afterPlayerId, LocalDate afterDate,
+                                              LocalDate startDate, LocalDate endDate, Limit limit) {
+        int max = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+        List<ChessDailyRating> page = new ArrayList<>();
+        for (Integer playerId : playerIds.stream().sorted().distinct().toList()) {
+            int order = playerId.compareTo(afterPlayerId);
+            if (order < 0) {
+                continue;
+            }
+            LocalDate from = order == 0 && !afterDate.isBefore(startDate) ? afterDate.plusDays(1) : startDate;
+            if (from.isAfter(endDate)) {
+                continue;
+            }
+            for (ChessDailyRating rating : read(playerId, from, endDate)) {
+                page.add(rating);
+                if (page.size() >= max) {
+                    return page;
+                }
+            }
+        }
+        return page;
+    }
+
+    private static List<ChessDailyRating> page(List<ChessDailyRating> ratings, Limit limit) {
+        return limit.isLimited() && ratings.size() > limit.max() ? ratings.subList(0, limit.max()) : ratings;
+    }
+
+    private List<ChessDailyRating> read(Integer playerId, LocalDate start, LocalDate end) {
+        Optional<String> username = usernameOf(playerId);
+        if (username.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<ChessDailyRating> ratings = ratingLogStore.read(username.get(), start, end);
+        ratings.forEach(rating -> rating.setPlayerId(playerId));
+        return ratings;
+    }
+
+    private Optional<String> usernameOf(Integer playerId) {
+        return playerRepository.findById(playerId).map(Player::getUsername);
+    }
+
+    @Override
+    public <S extends ChessDailyRating> S save(S entity) {
+        ratingLogStore.append(requireUsername(entity), List.of(entity));
+        return entity;
+    }
+
+    @Override
+    public <S extends ChessDailyRating> List<S> saveAll(Iterable<S> entities) {
+        // One append (and one fsync) per user instead of per row
+        List<S> saved = new ArrayList<>();
+        entities.forEach(saved::add);
+        saved.stream()
+                .collect(Collectors.groupingBy(this::requireUsername))
+                .forEach(ratingLogStore::append);
+        return saved;
+    }
+
+    private String requireUsername(ChessDailyRating rating) {
+        return usernameOf(rating.getPlayerId())
+                .orElseThrow(() -> new IllegalArgumentException("Unknown player id " + rating.getPlayerId()));
+    }
+
+    @Override
+    public Optional<ChessDailyRating> findById(Long id) {
+        // Log records have no surrogate id
+        return Optional.empty();
+    }
+
+    @Override
+    public List<ChessDailyRating> findAll() {
+        List<ChessDailyRating> all = new ArrayList<>();
+        for (Integer playerId : findDistinctPlayerIds()) {
+            all.addAll(read(playerId, LocalDate.MIN, LocalDate.MAX));
+        }
+        return all;
+    }
+
+    @Override
+    public long count() {
+        return findAll().size();
+    }
+}
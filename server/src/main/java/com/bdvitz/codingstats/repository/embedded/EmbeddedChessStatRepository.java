@@ -0,0 +1,118 @@
+package com.bdvitz.codingstats.repository.embedded;
+
+import com.bdvitz.codingstats.model.ChessStat;
+import com.bdvitz.codingstats.repository.ChessStatRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ChessStatRepository backed by one small JSON file per user (embedded profile).
+ * All rows are held in memory; each save rewrites that user's file atomically.
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedChessStatRepository extends EmbeddedRepositorySupport<ChessStat, Long>
+        implements ChessStatRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedChessStatRepository.class);
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final Map<String, ChessStat> statsByUsername = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    public EmbeddedChessStatRepository(@Value("${chess.embedded.data-dir:./data}") String dataDir) throws IOException {
+        this.directory = Path.of(dataDir, "stats");
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Files.createDirectories(directory);
+        load();
+    }
+
+    private void load() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files) {
+                ChessStat chessStat = objectMapper.readValue(file.toFile(), ChessStat.class);
+                statsByUsername.put(chessStat.getUsername(), chessStat);
+                if (chessStat.getId() != null && chessStat.getId() >= nextId.get()) {
+                    nextId.set(chessStat.getId() + 1);
+                }
+            }
+        }
+        logger.info("Loaded {} stored chess stats from {}", statsByUsername.size(), directory.toAbsolutePath());
+    }
+
+    @Override
+    public Optional<ChessStat> findByUsername(String username) {
+        return Optional.ofNullable(statsByUsername.get(username));
+    }
+
+    @Override
+    public List<ChessStat> findByUsernameIn(Collection<String> usernames) {
+        List<ChessStat> found = new ArrayList<>();
+        for (String username : usernames) {
+            findByUsername(username).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public <S extends ChessStat> S save(S entity) {
+        if (entity.getId() == null) {
+            entity.setId(nextId.getAndIncrement());
+        } else {
+            // Same lifecycle hook JPA would run on update
+            entity.preUpdate();
+        }
+
+        Path file = directory.resolve(entity.getId() + ".json");
+        Path temp = directory.resolve(entity.getId() + ".json.tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), entity);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save chess stats for " + entity.getUsername(), e);
+        }
+
+        statsByUsername.put(entity.getUsername(), entity);
+        return entity;
+    }
+
+    @Override
+    public Optional<ChessStat> findById(Long id) {
+        return statsByUsername.values().stream()
+                .filter(chessStat -> id.equals(chessStat.getId()))
+                .findFirst();
+    }
+
+    @Override
+    public List<ChessStat> findAll() {
+        return new ArrayList<>(statsByUsername.values());
+    }
+
+    @Override
+    public long count() {
+        return statsByUsername.size();
+    }
+}
@@ -0,0 +1,108 @@
+package com.bdvitz.codingstats.repository.embedded;
+
+import com.bdvitz.codingstats.model.PlayerDerivedStats;
+import com.bdvitz.codingstats.repository.PlayerDerivedStatsRepository;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PlayerDerivedStatsRepository backed by one JSON file per user (embedded profile),
+ * laid out like EmbeddedChessStatRepository
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedPlayerDerivedStatsRepository extends EmbeddedRepositorySupport<PlayerDerivedStats, Long>
+        implements PlayerDerivedStatsRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedPlayerDerivedStatsRepository.class);
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final Map<String, PlayerDerivedStats> statsByUsername = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    public EmbeddedPlayerDerivedStatsRepository(@Value("${chess.embedded.data-dir:./data}") String dataDir) throws IOException {
+        this.directory = Path.of(dataDir, "derived");
+        // Computed getters (activeStreak, gain) are written but not read back
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        Files.createDirectories(directory);
+        load();
+    }
+
+    private void load() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files) {
+                PlayerDerivedStats stats = objectMapper.readValue(file.toFile(), PlayerDerivedStats.class);
+                statsByUsername.put(stats.getUsername(), stats);
+                if (stats.getId() != null && stats.getId() >= nextId.get()) {
+                    nextId.set(stats.getId() + 1);
+                }
+            }
+        }
+        logger.info("Loaded {} derived stats from {}", statsByUsername.size(), directory.toAbsolutePath());
+    }
+
+    @Override
+    public Optional<PlayerDerivedStats> findByUsername(String username) {
+        return Optional.ofNullable(statsByUsername.get(username));
+    }
+
+    @Override
+    public <S extends PlayerDerivedStats> S save(S entity) {
+        if (entity.getId() == null) {
+            entity.setId(nextId.getAndIncrement());
+        }
+
+        Path file = directory.resolve(entity.getId() + ".json");
+        Path temp = directory.resolve(entity.getId() + ".json.tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), entity);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save derived stats for " + entity.getUsername(), e);
+        }
+
+        statsByUsername.put(entity.getUsername(), entity);
+        return entity;
+    }
+
+    @Override
+    public Optional<PlayerDerivedStats> findById(Long id) {
+        return statsByUsername.values().stream()
+                .filter(stats -> id.equals(stats.getId()))
+                .findFirst();
+    }
+
+    @Override
+    public List<PlayerDerivedStats> findAll() {
+        return new ArrayList<>(statsByUsername.values());
+    }
+
+    @Override
+    public long count() {
+        return statsByUsername.size();
+    }
+}
@@ -0,0 +1,122 @@
+package com.bdvitz.codingstats.repository.embedded;
+
+import com.bdvitz.codingstats.model.Player;
+import com.bdvitz.codingstats.repository.PlayerRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PlayerRepository backed by a single players.json file (embedded profile).
+ * Rating logs are already one file per user; this only assigns them stable ids.
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedPlayerRepository extends EmbeddedRepositorySupport<Player, Integer>
+        implements PlayerRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedPlayerRepository.class);
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Player> playersByUsername = new ConcurrentHashMap<>();
+    private final Map<Integer, Player> playersById = new ConcurrentHashMap<>();
+
+    public EmbeddedPlayerRepository(
+            @Value("${chess.embedded.data-dir:./data}") String dataDir,
+            RatingLogStore ratingLogStore) throws IOException {
+        this.file = Path.of(dataDir, "players.json");
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Files.createDirectories(file.getParent());
+        load();
+        registerExistingLogs(ratingLogStore);
+    }
+
+    private void load() throws IOException {
+        if (Files.exists(file)) {
+            for (Player player : objectMapper.readValue(file.toFile(), new TypeReference<List<Player>>() {})) {
+                playersByUsername.put(player.getUsername(), player);
+                playersById.put(player.getId(), player);
+            }
+        }
+        logger.info("Loaded {} players from {}", playersById.size(), file.toAbsolutePath());
+    }
+
+    /**
+     * Rating logs written before players existed: register them, renaming logs to the canonical name
+     */
+    private void registerExistingLogs(RatingLogStore ratingLogStore) {
+        for (String username : ratingLogStore.usernames()) {
+            String name = Player.canonicalName(username);
+            if (!name.equals(username) && !ratingLogStore.rename(username, name)) {
+                logger.warn("Rating log {} conflicts with {} and is ignored", username, name);
+                continue;
+            }
+            insertIfAbsent(name);
+        }
+    }
+
+    @Override
+    public Optional<Player> findByUsername(String username) {
+        return Optional.ofNullable(playersByUsername.get(username));
+    }
+
+    @Override
+    public synchronized int insertIfAbsent(String username) {
+        if (playersByUsername.containsKey(username)) {
+            return 0;
+        }
+        int id = playersById.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+        save(new Player(id, username));
+        return 1;
+    }
+
+    @Override
+    public synchronized <S extends Player> S save(S entity) {
+        playersByUsername.put(entity.getUsername(), entity);
+        playersById.put(entity.getId(), entity);
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), findAll());
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save player " + entity.getUsername(), e);
+        }
+        return entity;
+    }
+
+    @Override
+    public Optional<Player> findById(Integer id) {
+        return Optional.ofNullable(playersById.get(id));
+    }
+
+    @Override
+    public List<Player> findAll() {
+        return new ArrayList<>(playersById.values());
+    }
+
+    @Override
+    public long count() {
+        return playersById.size();
+    }
+}
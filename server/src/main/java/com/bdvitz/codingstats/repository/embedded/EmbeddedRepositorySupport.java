@@ -0,0 +1,23 @@
+package com.bdvitz.codingstats.repository.embedded;
+
+import com.bdvitz.codingstats.repository.BaseRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base for file-backed implementations of the repository interfaces.
+ * Subclasses implement save, findById, findAll and count; saveAll saves one entity at a time
+ * unless a subclass can batch the write.
+ */
+public abstract class EmbeddedRepositorySupport<T, ID> implements BaseRepository<T, ID> {
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,346 @@
+package com.bdvitz.codingstats.repository.embedded;
+
+import com.bdvitz.codingstats.model.ChessDailyRating;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only, fixed-width daily rating log, one file per user.
+ *
+ * Record layout (16 bytes, big-endian): epoch day, rapid, blitz, bullet.
+ * A missing rating is stored as Integer.MIN_VALUE. Updating a day appends a new
+ * record and the last record for a day wins. Reads go through a read-only memory
+ * mapping that is remapped when the file has grown. Background compaction rewrites
+ * a log sorted by date with one record per day, via temp file and atomic rename.
+ * When a log is first opened, records beyond one per day (e.g. appended before a restart)
+ * count towards its garbage, so logs on a frequently restarted host still get compacted.
+ */
+@Component
+@Profile("embedded")
+public class RatingLogStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingLogStore.class);
+
+    static final int RECORD_SIZE = 16;
+    private static final int NULL_RATING = Integer.MIN_VALUE;
+    private static final String LOG_SUFFIX = ".ratings";
+
+    // Chess.com usernames are letters, digits, '_' and '-', so they are safe as file names
+    private static final Pattern SAFE_USERNAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Path directory;
+    private final double compactionGarbageRatio;
+    private final Map<String, UserLog> logs = new ConcurrentHashMap<>();
+
+    public RatingLogStore(
+            @Value("${chess.embedded.data-dir:./data}") String dataDir,
+            @Value("${chess.embedded.compaction-garbage-ratio:0.25}") double compactionGarbageRatio) throws IOException {
+        this.directory = Path.of(dataDir, "ratings");
+        this.compactionGarbageRatio = compactionGarbageRatio;
+        Files.createDirectories(directory);
+        logger.info("Embedded rating log store at {}", directory.toAbsolutePath());
+    }
+
+    /**
+     * Per-user log state; the lock guards the file, the mapping and the counters
+     */
+    private static final class UserLog {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final Path path;
+        MappedByteBuffer mapped;
+        long mappedLength;
+        // Records appended since the last compaction (upper bound on duplicates/out-of-order records),
+        // seeded with the duplicates already in the file when it is opened
+        long appendedSinceCompaction;
+        volatile boolean seeded;
+
+        UserLog(Path path) {
+            this.path = path;
+        }
+    }
+
+    public boolean exists(String username) {
+        UserLog log = logFor(username);
+        return log != null && Files.exists(log.path);
+    }
+
+    /**
+     * Append ratings for a user; each record is the full state of that day
+     */
+    public void append(String username, Collection<? extends ChessDailyRating> ratings) {
+        UserLog log = requireLog(username);
+        ByteBuffer buffer = ByteBuffer.allocate(ratings.size() * RECORD_SIZE);
+        for (ChessDailyRating rating : ratings) {
+            buffer.putInt((int) rating.getDate().toEpochDay());
+            buffer.putInt(encode(rating.getRapidRating()));
+            buffer.putInt(encode(rating.getBlitzRating()));
+            buffer.putInt(encode(rating.getBulletRating()));
+        }
+        buffer.flip();
+
+        log.lock.writeLock().lock();
+        try (FileChannel channel = FileChannel.open(log.path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            log.appendedSinceCompaction += ratings.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append ratings for " + username, e);
+        } finally {
+            log.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Latest record per day between start and end (inclusive), sorted by date
+     */
+    public List<ChessDailyRating> read(String username, LocalDate start, LocalDate end) {
+        return new ArrayList<>(readDays(username, start.toEpochDay(), end.toEpochDay()).values());
+    }
+
+    public List<ChessDailyRating> readAll(String username) {
+        return new ArrayList<>(readDays(username, Long.MIN_VALUE, Long.MAX_VALUE).values());
+    }
+
+    public List<String> usernames() {
+        List<String> usernames = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + LOG_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                usernames.add(name.substring(0, name.length() - LOG_SUFFIX.length()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list rating logs", e);
+        }
+        return usernames;
+    }
+
+    /**
+     * Rename a user's log, e.g. to its canonical username. Only safe before the log is in use.
+     * @return false if a log already exists under the new name
+     */
+    public boolean rename(String username, String newUsername) {
+        UserLog from = requireLog(username);
+        UserLog to = requireLog(newUsername);
+        try {
+            if (Files.exists(to.path)) {
+                return false;
+            }
+            Files.move(from.path, to.path, StandardCopyOption.ATOMIC_MOVE);
+            logs.remove(username);
+            // Count the duplicates the moved file brings along
+            to.seeded = false;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to rename rating log for " + username, e);
+        }
+    }
+
+    private TreeMap<Long, ChessDailyRating> readDays(String username, long startDay, long endDay) {
+        TreeMap<Long, ChessDailyRating> days = new TreeMap<>();
+        UserLog log = logFor(username);
+        if (log == null) {
+            return days;
+        }
+
+        ByteBuffer view = mappedView(log);
+        if (view == null) {
+            return days;
+        }
+
+        while (view.remaining() >= RECORD_SIZE) {
+            long epochDay = view.getInt();
+            int rapid = view.getInt();
+            int blitz = view.getInt();
+            int bullet = view.getInt();
+            if (epochDay < startDay || epochDay > endDay) {
+                continue;
+            }
+            ChessDailyRating rating = new ChessDailyRating(username, LocalDate.ofEpochDay(epochDay));
+            rating.setRapidRating(decode(rapid));
+            rating.setBlitzRating(decode(blitz));
+            rating.setBulletRating(decode(bullet));
+            days.put(epochDay, rating);
+        }
+        return days;
+    }
+
+    /**
+     * Independent read view over the user's mapping, remapping first if the file grew
+     */
+    private ByteBuffer mappedView(UserLog log) {
+        log.lock.readLock().lock();
+        try {
+            long length = Files.exists(log.path) ? Files.size(log.path) : 0;
+            if (length == 0) {
+                return null;
+            }
+            if (log.mapped != null && log.mappedLength == length) {
+                return log.mapped.duplicate();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read rating log " + log.path, e);
+        } finally {
+            log.lock.readLock().unlock();
+        }
+
+        log.lock.writeLock().lock();
+        try (FileChannel channel = FileChannel.open(log.path, StandardOpenOption.READ)) {
+            long length = channel.size() - (channel.size() % RECORD_SIZE);
+            log.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            log.mappedLength = channel.size();
+            return log.mapped.duplicate();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map rating log " + log.path, e);
+        } finally {
+            log.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compact logs whose appended-but-uncompacted records exceed the garbage ratio
+     */
+    @Scheduled(fixedDelayString = "${chess.embedded.compaction-interval-ms:600000}",
+               initialDelayString = "${chess.embedded.compaction-interval-ms:600000}")
+    public void compactAll() {
+        for (String username : usernames()) {
+            UserLog log = logFor(username);
+            if (log == null) {
+                continue;
+            }
+            long records;
+            try {
+                records = Files.size(log.path) / RECORD_SIZE;
+            } catch (IOException e) {
+                continue;
+            }
+            if (records > 0 && log.appendedSinceCompaction >= Math.max(1, records * compactionGarbageRatio)) {
+                compact(username);
+            }
+        }
+    }
+
+    /**
+     * Rewrite a user's log sorted by date with one record per day
+     */
+    public void compact(String username) {
+        UserLog log = requireLog(username);
+        log.lock.writeLock().lock();
+        try {
+            List<ChessDailyRating> days = readAll(username);
+            Path temp = log.path.resolveSibling(log.path.getFileName() + ".compact");
+
+            ByteBuffer buffer = ByteBuffer.allocate(days.size() * RECORD_SIZE);
+            for (ChessDailyRating rating : days) {
+                buffer.putInt((int) rating.getDate().toEpochDay());
+                buffer.putInt(encode(rating.getRapidRating()));
+                buffer.putInt(encode(rating.getBlitzRating()));
+                buffer.putInt(encode(rating.getBulletRating()));
+            }
+            buffer.flip();
+
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            long before = Files.size(log.path) / RECORD_SIZE;
+            Files.move(temp, log.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            log.mapped = null;
+            log.mappedLength = 0;
+            log.appendedSinceCompaction = 0;
+            logger.info("Compacted rating log for {}: {} -> {} records", username, before, days.size());
+        } catch (IOException e) {
+            logger.error("Failed to compact rating log for {}", username, e);
+        } finally {
+            log.lock.writeLock().unlock();
+        }
+    }
+
+    private UserLog logFor(String username) {
+        if (username == null || !SAFE_USERNAME.matcher(username).matches()) {
+            return null;
+        }
+        UserLog log = logs.computeIfAbsent(username, name -> new UserLog(directory.resolve(name + LOG_SUFFIX)));
+        if (!log.seeded) {
+            seed(log);
+        }
+        return log;
+    }
+
+    /**
+     * Add the records beyond one per day already in the file to the garbage count. The file is scanned
+     * outside the lock; appends made meanwhile are counted by append() and aren't in the scanned view.
+     */
+    private void seed(UserLog log) {
+        ByteBuffer view = mappedView(log);
+        long duplicates = 0;
+        if (view != null) {
+            Set<Integer> days = new HashSet<>();
+            long records = 0;
+            while (view.remaining() >= RECORD_SIZE) {
+                days.add(view.getInt());
+                view.position(view.position() + RECORD_SIZE - Integer.BYTES);
+                records++;
+            }
+            duplicates = records - days.size();
+        }
+
+        log.lock.writeLock().lock();
+        try {
+            if (!log.seeded) {
+                log.appendedSinceCompaction += duplicates;
+                log.seeded = true;
+            }
+        } finally {
+            log.lock.writeLock().unlock();
+        }
+    }
+
+    private UserLog requireLog(String username) {
+        UserLog log = logFor(username);
+        if (log == null) {
+            throw new IllegalArgumentException("Invalid Chess.com username: " + username);
+        }
+        return log;
+    }
+
+    private static int encode(Integer rating) {
+        return rating != null ? rating : NULL_RATING;
+    }
+
+    private static Integer decode(int rating) {
+        return rating == NULL_RATING ? null : rating;
+    }
+}
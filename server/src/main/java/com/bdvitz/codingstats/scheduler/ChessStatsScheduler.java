@@ -1,8 +1,12 @@
 package com.bdvitz.codingstats.scheduler;
 
 import com.bdvitz.codingstats.service.ChessStatsService;
+import com.bdvitz.codingstats.service.ClusterCoordinator;
+import com.bdvitz.codingstats.service.RequestLane;
+import com.bdvitz.codingstats.service.SnapshotPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -18,19 +22,40 @@ public class ChessStatsScheduler {
     
     @Value("${chess.username}")
     private String chessUsername;
+
+    @Autowired
+    private SnapshotPublisher snapshotPublisher;
+
+    // Absent in the embedded profile, where this is the only instance
+    @Autowired
+    private ObjectProvider<ClusterCoordinator> clusterCoordinator;
     
     /**
      * Scheduled task to fetch chess stats daily at 3 AM UTC
      * Cron expression: "0 0 3 * * *" = Every day at 03:00:00
+     * With several instances only the leader (see ClusterCoordinator) runs it
+     * Then publishes the static snapshot files, if chess.snapshot.publish.directory is set
      */
     @Scheduled(cron = "0 0 3 * * *")
     public void fetchChessStatsScheduled() {
+        ClusterCoordinator coordinator = clusterCoordinator.getIfAvailable();
+        if (coordinator != null && !coordinator.isLeader()) {
+            logger.info("Skipping scheduled chess stats fetch: node {} is not the leader", coordinator.getNodeId());
+            return;
+        }
         logger.info("Starting scheduled chess stats fetch for user: {}", chessUsername);
         try {
-            chessStatsService.fetchAndUpdateCurrentStats(chessUsername);
+            RequestLane.run(RequestLane.BACKGROUND, () -> chessStatsService.fetchAndUpdateCurrentStats(chessUsername));
             logger.info("Successfully completed scheduled chess stats update");
         } catch (Exception e) {
             logger.error("Error during scheduled chess stats update", e);
         }
+        if (snapshotPublisher.isEnabled()) {
+            try {
+                snapshotPublisher.publish();
+            } catch (Exception e) {
+                logger.error("Error publishing snapshot after scheduled update", e);
+            }
+        }
     }
 }
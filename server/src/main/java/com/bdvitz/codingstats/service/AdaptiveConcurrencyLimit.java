@@ -0,0 +1,191 @@
+package com.bdvitz.codingstats.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to observed latency (a simplified gradient limiter).
+ *
+ * Latencies are averaged over windows of windowMs. The lowest window average seen is taken as the
+ * no-load latency; it drifts up a little every window so a backend that stays slower is eventually
+ * accepted as normal. A window averaging more than tolerance x the no-load latency means requests
+ * are queueing downstream, so the limit shrinks by a quarter. A window that ran at the limit without
+ * that grows it by one.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimit.class);
+
+    // Latency differences below this are scheduling and GC noise, not queueing
+    private static final long SIGNIFICANT_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final double NO_LOAD_DRIFT = 1.02;
+    private static final int MIN_WINDOW_SAMPLES = 5;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long windowNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    // Guarded by lock
+    private int limit;
+    private int inFlight;
+    private int waiting;
+    private long windowStart = System.nanoTime();
+    private long windowLatencySum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private long noLoadLatencyNanos;
+    private long lastWindowLatencyNanos;
+
+    public AdaptiveConcurrencyLimit(String name, int minLimit, int maxLimit, double tolerance, long windowMs) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        // Start open; the first slow window brings it down
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Take a slot if one is free right now
+     */
+    public boolean tryAcquire() {
+        return acquire(0);
+    }
+
+    /**
+     * Take a slot, waiting up to timeoutMs for one to free up.
+     * Every successful acquire must be matched by release.
+     */
+    public boolean acquire(long timeoutMs) {
+        return acquire(timeoutMs, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Take a slot, waiting up to timeoutMs for one unless maxWaiting callers are already waiting,
+     * so waiters can't tie up more than maxWaiting threads
+     */
+    public boolean acquire(long timeoutMs, int maxWaiting) {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            if (inFlight >= limit && remaining > 0 && waiting < maxWaiting) {
+                waiting++;
+                try {
+                    while (inFlight >= limit && remaining > 0) {
+                        remaining = released.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    waiting--;
+                }
+            }
+            if (inFlight >= limit) {
+                return false;
+            }
+            inFlight++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return a slot, recording how long the request held it
+     */
+    public void release(long latencyNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            windowLatencySum += latencyNanos;
+            windowSamples++;
+            long now = System.nanoTime();
+            if (now - windowStart >= windowNanos && windowSamples >= MIN_WINDOW_SAMPLES) {
+                adjust(windowLatencySum / windowSamples);
+                windowStart = now;
+                windowLatencySum = 0;
+                windowSamples = 0;
+                windowMaxInFlight = inFlight;
+            }
+            // The limit may have grown by one, so wake everyone that could now fit
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(long averageNanos) {
+        lastWindowLatencyNanos = averageNanos;
+        noLoadLatencyNanos = noLoadLatencyNanos == 0
+                ? averageNanos
+                : Math.min(averageNanos, (long) (noLoadLatencyNanos * NO_LOAD_DRIFT));
+
+        int previous = limit;
+        if (averageNanos > SIGNIFICANT_LATENCY_NANOS && averageNanos > noLoadLatencyNanos * tolerance) {
+            limit = Math.max(minLimit, limit - Math.max(1, limit / 4));
+        } else if (windowMaxInFlight >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        if (limit != previous) {
+            logger.debug("Admission limit {} {} -> {} (window avg {} ms, no-load {} ms)", name, previous, limit,
+                    TimeUnit.NANOSECONDS.toMillis(averageNanos), TimeUnit.NANOSECONDS.toMillis(noLoadLatencyNanos));
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Callers currently blocked in acquire
+     */
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Average latency of the last completed window, 0 before the first one
+     */
+    public long getLatencyMs() {
+        lock.lock();
+        try {
+            return TimeUnit.NANOSECONDS.toMillis(lastWindowLatencyNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.model.Player;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user index of the months that have a Chess.com game archive, built from the archives list
+ * (one small call), so probing every month since 2020 costs one upstream call plus one per month
+ * with games, instead of one per month.
+ *
+ * Archives of months before the month the list was fetched in can't change, so "no archive" for them
+ * holds until the entry is evicted by the LRU bound. The month the list was fetched in (and any later one)
+ * can gain an archive once the user plays, so a miss there is trusted for current-month-ttl-minutes and
+ * then the list is fetched again. The same goes for the previous month if the list was fetched within
+ * rollover-grace-hours of the month starting: games finishing around midnight UTC may not be archived yet.
+ * Months seen to have games are added without a fetch.
+ * Concurrent loads for the same user share one call. Under memory pressure the bound drops to a half
+ * (ELEVATED) or a tenth (HIGH and above).
+ */
+@Component
+public class ArchiveMonthIndex implements MemoryAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveMonthIndex.class);
+
+    // Rough heap per user: key string, entry and the linked map entry; plus 4 bytes per month
+    private static final long ENTRY_BYTES = 200;
+
+    private final ChessComApiService chessComApiService;
+    private final int maxUsers;
+    // maxUsers, or less under memory pressure
+    private volatile int userLimit;
+    private final long currentMonthTtlMs;
+    private final long rolloverGraceMs;
+
+    // Canonical username -> index, in access order for LRU eviction
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong skippedMonths = new AtomicLong();
+
+    /**
+     * Months with an archive as sorted month numbers (year * 12 + month - 1), and the first month whose
+     * archive could still appear (earlier misses are final)
+     */
+    private record Entry(int[] months, int openFrom, long fetchedAt) {
+
+        boolean contains(int month) {
+            return Arrays.binarySearch(months, month) >= 0;
+        }
+    }
+
+    public ArchiveMonthIndex(
+            ChessComApiService chessComApiService,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${chess.archives.max-users:1000}") int maxUsers,
+            @Value("${chess.archives.current-month-ttl-minutes:15}") long currentMonthTtlMinutes,
+            @Value("${chess.archives.rollover-grace-hours:24}") long rolloverGraceHours) {
+        this.chessComApiService = chessComApiService;
+        this.maxUsers = maxUsers;
+        this.userLimit = maxUsers;
+        this.currentMonthTtlMs = currentMonthTtlMinutes * 60_000L;
+        this.rolloverGraceMs = rolloverGraceHours * 3_600_000L;
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > userLimit;
+            }
+        };
+        meterRegistry.ifAvailable(registry -> {
+            FunctionCounter.builder("chess.archives.loads", loads, AtomicLong::get)
+                    .description("Archive lists fetched from Chess.com")
+                    .register(registry);
+            FunctionCounter.builder("chess.archives.skipped-months", skippedMonths, AtomicLong::get)
+                    .description("Month lookups answered without a Chess.com call because the month has no archive")
+                    .register(registry);
+        });
+    }
+
+    /**
+     * Months with an archive for a user, oldest first, fetching the archives list unless a recent one is indexed
+     * @throws UserNotFoundException if the user doesn't exist
+     * @throws UpstreamUnavailableException if Chess.com is unreachable or the circuit is open
+     */
+    public List<YearMonth> getMonths(String username) {
+        String name = Player.canonicalName(username);
+        Entry entry = get(name);
+        if (entry == null || !isFresh(entry)) {
+            entry = load(name);
+        }
+        List<YearMonth> months = new ArrayList<>(entry.months().length);
+        for (int month : entry.months()) {
+            months.add(YearMonth.of(month / 12, month % 12 + 1));
+        }
+        return months;
+    }
+
+    /**
+     * Whether a month has an archive, fetching the archives list if the index can't tell
+     * @return empty if the archives list couldn't be fetched; callers then ask for the month itself
+     */
+    public Optional<Boolean> hasArchive(String username, int year, int month) {
+        int key = key(YearMonth.of(year, month));
+        if (key > key(YearMonth.now(ZoneOffset.UTC))) {
+            skippedMonths.incrementAndGet();
+            return Optional.of(false);
+        }
+
+        String name = Player.canonicalName(username);
+        Entry entry = get(name);
+        if (entry == null || !(entry.contains(key) || key < entry.openFrom() || isFresh(entry))) {
+            try {
+                entry = load(name);
+            } catch (RuntimeException e) {
+                logger.debug("Archive list for {} unavailable: {}", name, e.getMessage());
+                return Optional.empty();
+            }
+        }
+        boolean present = entry.contains(key);
+        if (!present) {
+            skippedMonths.incrementAndGet();
+        }
+        return Optional.of(present);
+    }
+
+    /**
+     * Record that a month has games (seen when fetching it), so the index doesn't need refetching for it
+     */
+    public void recordMonth(String username, int year, int month) {
+        String name = Player.canonicalName(username);
+        int key = key(YearMonth.of(year, month));
+        synchronized (entries) {
+            Entry entry = entries.get(name);
+            if (entry != null && !entry.contains(key)) {
+                int[] months = Arrays.copyOf(entry.months(), entry.months().length + 1);
+                months[months.length - 1] = key;
+                Arrays.sort(months);
+                entries.put(name, new Entry(months, entry.openFrom(), entry.fetchedAt()));
+            }
+        }
+    }
+
+    public long getLoads() {
+        return loads.get();
+    }
+
+    public long getSkippedMonths() {
+        return skippedMonths.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        synchronized (entries) {
+            long bytes = 0;
+            for (Entry entry : entries.values()) {
+                bytes += ENTRY_BYTES + 4L * entry.months().length;
+            }
+            return bytes;
+        }
+    }
+
+    @Override
+    public void onMemoryPressure(MemoryPressure level) {
+        userLimit = switch (level) {
+            case NORMAL -> maxUsers;
+            case ELEVATED -> Math.max(1, maxUsers / 2);
+            default -> Math.max(1, maxUsers / 10);
+        };
+        synchronized (entries) {
+            // Least recently used first
+            Iterator<String> keys = entries.keySet().iterator();
+            while (entries.size() > userLimit && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+
+    private Entry get(String name) {
+        synchronized (entries) {
+            return entries.get(name);
+        }
+    }
+
+    private boolean isFresh(Entry entry) {
+        return System.currentTimeMillis() - entry.fetchedAt() < currentMonthTtlMs;
+    }
+
+    /**
+     * Fetch the archives list, or wait for the fetch another thread already started for the same user
+     */
+    private Entry load(String name) {
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = loading.putIfAbsent(name, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Entry entry = fetch(name);
+            synchronized (entries) {
+                entries.put(name, entry);
+            }
+            mine.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(name, mine);
+        }
+    }
+
+    private Entry fetch(String name) {
+        long fetchedAt = System.currentTimeMillis();
+        YearMonth listedMonth = YearMonth.now(ZoneOffset.UTC);
+        long monthStart = listedMonth.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        // Within the grace period the previous month may still gain an archive
+        int openFrom = key(listedMonth) - (fetchedAt - monthStart < rolloverGraceMs ? 1 : 0);
+        JsonNode archives = chessComApiService.fetchAvailableArchives(name).path("archives");
+        loads.incrementAndGet();
+
+        // URLs end in .../games/{yyyy}/{mm}
+        int[] months = new int[archives.size()];
+        int count = 0;
+        for (JsonNode url : archives) {
+            String[] parts = url.asText("").split("/");
+            try {
+                int year = Integer.parseInt(parts[parts.length - 2]);
+                int month = Integer.parseInt(parts[parts.length - 1]);
+                months[count++] = key(YearMonth.of(year, month));
+            } catch (RuntimeException e) {
+                logger.warn("Ignoring unexpected archive URL for {}: {}", name, url.asText(""));
+            }
+        }
+        months = Arrays.copyOf(months, count);
+        Arrays.sort(months);
+        return new Entry(months, openFrom, fetchedAt);
+    }
+
+    private static int key(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+}
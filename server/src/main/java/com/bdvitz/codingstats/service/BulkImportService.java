@@ -0,0 +1,466 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.event.ChessStatUpdatedEvent;
+import com.bdvitz.codingstats.model.ChessStat;
+import com.bdvitz.codingstats.model.Player;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bulk import of snapshot files (/api/snapshot/generate output) and NDJSON daily-rating history
+ * for seeding a fresh database or restoring after data loss.
+ *
+ * Rows are parsed with the streaming JSON parser and written straight into a PostgreSQL COPY
+ * to a temporary staging table, so memory stays constant however large the file is. One merge
+ * statement then registers missing players and upserts daily_ratings with the same rule as
+ * RatingWriteBuffer: a non-null rating wins over null, and later rows win over earlier ones.
+ * Current stats only replace a stored row that is older. The whole import is one transaction.
+ *
+ * Derived stats are rebuilt for every imported user afterwards. No DailyRatingsUpdatedEvent is
+ * published for imported rows, so stream subscribers and other instances only see imported
+ * current stats; history is read from the database on the next request anyway.
+ */
+@Service
+@Profile("!embedded")
+public class BulkImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    // COPY data is sent to the server in chunks of about this many characters
+    private static final int COPY_CHUNK_CHARS = 64 * 1024;
+
+    private static final String CREATE_RATINGS_STAGING = """
+            CREATE TEMP TABLE import_daily_ratings (
+                seq           BIGINT GENERATED ALWAYS AS IDENTITY,
+                username      TEXT NOT NULL,
+                date          DATE NOT NULL,
+                rapid_rating  INTEGER,
+                blitz_rating  INTEGER,
+                bullet_rating INTEGER
+            ) ON COMMIT DROP""";
+
+    private static final String COPY_RATINGS =
+            "COPY import_daily_ratings (username, date, rapid_rating, blitz_rating, bullet_rating) FROM STDIN";
+
+    private static final String INSERT_PLAYERS = """
+            INSERT INTO players (username, created_at)
+            SELECT DISTINCT username, now() FROM import_daily_ratings
+            ON CONFLICT (username) DO NOTHING""";
+
+    // Duplicate (username, date) rows in the file collapse to the last non-null value per rating
+    private static final String MERGE_RATINGS = """
+            INSERT INTO daily_ratings (player_id, date, rapid_rating, blitz_rating, bullet_rating)
+            SELECT p.id, s.date,
+                   (array_agg(s.rapid_rating ORDER BY s.seq DESC) FILTER (WHERE s.rapid_rating IS NOT NULL))[1],
+                   (array_agg(s.blitz_rating ORDER BY s.seq DESC) FILTER (WHERE s.blitz_rating IS NOT NULL))[1],
+                   (array_agg(s.bullet_rating ORDER BY s.seq DESC) FILTER (WHERE s.bullet_rating IS NOT NULL))[1]
+            FROM import_daily_ratings s
+            JOIN players p ON p.username = s.username
+            GROUP BY p.id, s.date
+            ON CONFLICT (player_id, date) DO UPDATE SET
+                rapid_rating = COALESCE(EXCLUDED.rapid_rating, daily_ratings.rapid_rating),
+                blitz_rating = COALESCE(EXCLUDED.blitz_rating, daily_ratings.blitz_rating),
+                bullet_rating = COALESCE(EXCLUDED.bullet_rating, daily_ratings.bullet_rating)
+            WHERE (daily_ratings.rapid_rating, daily_ratings.blitz_rating, daily_ratings.bullet_rating)
+                IS DISTINCT FROM (COALESCE(EXCLUDED.rapid_rating, daily_ratings.rapid_rating),
+                                  COALESCE(EXCLUDED.blitz_rating, daily_ratings.blitz_rating),
+                                  COALESCE(EXCLUDED.bullet_rating, daily_ratings.bullet_rating))""";
+
+    private static final String CREATE_STATS_STAGING = """
+            CREATE TEMP TABLE import_chess_stats (
+                seq           BIGINT GENERATED ALWAYS AS IDENTITY,
+                username      TEXT NOT NULL,
+                rapid_rating  INTEGER,
+                blitz_rating  INTEGER,
+                bullet_rating INTEGER,
+                puzzle_rating INTEGER,
+                total_games   INTEGER,
+                wins          INTEGER,
+                losses        INTEGER,
+                draws         INTEGER,
+                last_updated  DATE
+            ) ON COMMIT DROP""";
+
+    private static final String COPY_STATS = "COPY import_chess_stats (username, rapid_rating, blitz_rating, "
+            + "bullet_rating, puzzle_rating, total_games, wins, losses, draws, last_updated) FROM STDIN";
+
+    // fetched_at is cleared so the next read refreshes imported stats from Chess.com
+    private static final String MERGE_STATS = """
+            INSERT INTO chess_stats (username, rapid_rating, blitz_rating, bullet_rating, puzzle_rating,
+                                     total_games, wins, losses, draws, last_updated)
+            SELECT DISTINCT ON (username) username, rapid_rating, blitz_rating, bullet_rating, puzzle_rating,
+                   total_games, wins, losses, draws, last_updated
+            FROM import_chess_stats
+            ORDER BY username, seq DESC
+            ON CONFLICT (username) DO UPDATE SET
+                rapid_rating = EXCLUDED.rapid_rating,
+                blitz_rating = EXCLUDED.blitz_rating,
+                bullet_rating = EXCLUDED.bullet_rating,
+                puzzle_rating = EXCLUDED.puzzle_rating,
+                total_games = EXCLUDED.total_games,
+                wins = EXCLUDED.wins,
+                losses = EXCLUDED.losses,
+                draws = EXCLUDED.draws,
+                last_updated = EXCLUDED.last_updated,
+                fetched_at = NULL
+            WHERE chess_stats.last_updated IS NULL
+                OR (EXCLUDED.last_updated IS NOT NULL AND chess_stats.last_updated < EXCLUDED.last_updated)
+            RETURNING username""";
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final DerivedStatsService derivedStatsService;
+    private final NegativeResultCache negativeResultCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // One import at a time; each holds a primary connection for its whole duration
+    private final ReentrantLock importLock = new ReentrantLock();
+
+    public BulkImportService(
+            DataSource dataSource,
+            ObjectMapper objectMapper,
+            DerivedStatsService derivedStatsService,
+            NegativeResultCache negativeResultCache,
+            ApplicationEventPublisher eventPublisher) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.derivedStatsService = derivedStatsService;
+        this.negativeResultCache = negativeResultCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Import a snapshot file: {"historicalData": [daily ratings...], "currentStats": {...}, ...}
+     * @return row and user counts
+     * @throws IllegalArgumentException if the file is malformed
+     * @throws ImportInProgressException if another import is running
+     */
+    public Map<String, Object> importSnapshot(InputStream input) throws IOException, SQLException {
+        return runImport(input, true);
+    }
+
+    /**
+     * Import NDJSON history: one daily rating object per line, as in a snapshot's historicalData
+     * @return row and user counts
+     * @throws IllegalArgumentException if the file is malformed
+     * @throws ImportInProgressException if another import is running
+     */
+    public Map<String, Object> importHistory(InputStream input) throws IOException, SQLException {
+        return runImport(input, false);
+    }
+
+    private Map<String, Object> runImport(InputStream input, boolean snapshot) throws IOException, SQLException {
+        if (!importLock.tryLock()) {
+            throw new ImportInProgressException();
+        }
+        try {
+            long start = System.nanoTime();
+            Map<String, Object> result = new LinkedHashMap<>();
+            List<ChessStat> stats = new ArrayList<>();
+            List<String> usernames = new ArrayList<>();
+            List<String> updatedStats = new ArrayList<>();
+
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute(CREATE_RATINGS_STAGING);
+                    }
+                    CopyWriter ratings = new CopyWriter(connection, COPY_RATINGS);
+                    try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+                        if (snapshot) {
+                            readSnapshot(parser, ratings, stats);
+                        } else {
+                            readHistory(parser, ratings);
+                        }
+                        result.put("rowsRead", ratings.finish());
+                    } finally {
+                        ratings.cancel();
+                    }
+
+                    try (Statement statement = connection.createStatement()) {
+                        // Temp tables are never analyzed automatically
+                        statement.execute("ANALYZE import_daily_ratings");
+                        result.put("playersCreated", statement.executeUpdate(INSERT_PLAYERS));
+                        // Rows inserted or changed; rows already holding the same ratings are left alone
+                        result.put("ratingsWritten", statement.executeUpdate(MERGE_RATINGS));
+                        try (ResultSet rs = statement.executeQuery("SELECT DISTINCT username FROM import_daily_ratings")) {
+                            while (rs.next()) {
+                                usernames.add(rs.getString(1));
+                            }
+                        }
+                    }
+                    if (!stats.isEmpty()) {
+                        updatedStats = mergeStats(connection, stats);
+                    }
+                    connection.commit();
+                } catch (IOException | SQLException | RuntimeException e) {
+                    try {
+                        connection.rollback();
+                    } catch (SQLException rollbackFailure) {
+                        e.addSuppressed(rollbackFailure);
+                    }
+                    throw e;
+                }
+            }
+            result.put("statsUpdated", updatedStats.size());
+            result.put("users", usernames.size());
+
+            afterCommit(usernames, stats, updatedStats);
+            result.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+            logger.info("Imported {} {}", snapshot ? "snapshot" : "history", result);
+            return result;
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    private List<String> mergeStats(Connection connection, List<ChessStat> stats) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STATS_STAGING);
+        }
+        CopyWriter writer = new CopyWriter(connection, COPY_STATS);
+        try {
+            for (ChessStat stat : stats) {
+                writer.text(stat.getUsername()).number(stat.getRapidRating()).number(stat.getBlitzRating())
+                        .number(stat.getBulletRating()).number(stat.getPuzzleRating()).number(stat.getTotalGames())
+                        .number(stat.getWins()).number(stat.getLosses()).number(stat.getDraws())
+                        .text(stat.getLastUpdated() != null ? stat.getLastUpdated().toString() : null)
+                        .endRow();
+            }
+            writer.finish();
+        } finally {
+            writer.cancel();
+        }
+
+        List<String> updated = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(MERGE_STATS)) {
+            while (rs.next()) {
+                updated.add(rs.getString(1));
+            }
+        }
+        return updated;
+    }
+
+    private void afterCommit(List<String> usernames, List<ChessStat> stats, List<String> updatedStats) {
+        for (String username : usernames) {
+            negativeResultCache.invalidateUser(username);
+            try {
+                derivedStatsService.rebuild(username);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to rebuild derived stats for {} after import: {}", username, e.getMessage());
+            }
+        }
+        Map<String, ChessStat> byName = new HashMap<>();
+        stats.forEach(stat -> byName.put(stat.getUsername(), stat));
+        for (String username : updatedStats) {
+            eventPublisher.publishEvent(new ChessStatUpdatedEvent(byName.get(username)));
+        }
+    }
+
+    private void readSnapshot(JsonParser parser, CopyWriter ratings, List<ChessStat> stats) throws IOException, SQLException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Snapshot must be a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("historicalData".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    readRating(parser, ratings);
+                }
+            } else if ("currentStats".equals(field) && value == JsonToken.START_OBJECT) {
+                ChessStat stat = objectMapper.readValue(parser, ChessStat.class);
+                if (stat.getUsername() == null || stat.getUsername().isBlank()) {
+                    throw new IllegalArgumentException("currentStats has no username");
+                }
+                stat.setUsername(Player.canonicalName(stat.getUsername()));
+                stats.add(stat);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readHistory(JsonParser parser, CopyWriter ratings) throws IOException, SQLException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Line " + parser.currentLocation().getLineNr()
+                        + ": expected a JSON object per line");
+            }
+            readRating(parser, ratings);
+        }
+    }
+
+    /**
+     * Read one daily rating object (parser at its START_OBJECT) into the COPY stream
+     */
+    private void readRating(JsonParser parser, CopyWriter ratings) throws IOException, SQLException {
+        long line = parser.currentLocation().getLineNr();
+        String username = null;
+        String date = null;
+        Integer rapid = null;
+        Integer blitz = null;
+        Integer bullet = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "username" -> username = textValue(parser, value);
+                case "date" -> date = textValue(parser, value);
+                case "rapidRating" -> rapid = intValue(parser, value, field, line);
+                case "blitzRating" -> blitz = intValue(parser, value, field, line);
+                case "bulletRating" -> bullet = intValue(parser, value, field, line);
+                default -> parser.skipChildren();
+            }
+        }
+        if (username == null || username.isBlank() || date == null) {
+            throw new IllegalArgumentException("Line " + line + ": username and date are required");
+        }
+        try {
+            LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Line " + line + ": invalid date " + date);
+        }
+        ratings.text(Player.canonicalName(username)).text(date).number(rapid).number(blitz).number(bullet).endRow();
+    }
+
+    /**
+     * A scalar as text; an object or array is skipped and read as missing
+     */
+    private static String textValue(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    /**
+     * A rating: a JSON integer that fits an int, or null. Anything else (strings, decimals, booleans) is rejected
+     * rather than coerced, which would store a wrong rating or 0.
+     */
+    private static Integer intValue(JsonParser parser, JsonToken value, String field, long line) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value != JsonToken.VALUE_NUMBER_INT || parser.getNumberType() != JsonParser.NumberType.INT) {
+            throw new IllegalArgumentException("Line " + line + ": " + field + " must be an integer or null");
+        }
+        return parser.getIntValue();
+    }
+
+    /**
+     * Rows in COPY text format, sent in fixed-size chunks so nothing accumulates in memory
+     */
+    private static class CopyWriter {
+
+        private final CopyIn copyIn;
+        private final StringBuilder chunk = new StringBuilder(COPY_CHUNK_CHARS + 256);
+        private boolean rowStarted;
+        private long rows;
+
+        CopyWriter(Connection connection, String sql) throws SQLException {
+            this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        }
+
+        CopyWriter text(String value) {
+            separate();
+            if (value == null) {
+                chunk.append("\\N");
+                return this;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> chunk.append("\\\\");
+                    case '\t' -> chunk.append("\\t");
+                    case '\n' -> chunk.append("\\n");
+                    case '\r' -> chunk.append("\\r");
+                    default -> chunk.append(c);
+                }
+            }
+            return this;
+        }
+
+        CopyWriter number(Integer value) {
+            separate();
+            if (value == null) {
+                chunk.append("\\N");
+            } else {
+                chunk.append(value.intValue());
+            }
+            return this;
+        }
+
+        void endRow() throws SQLException {
+            chunk.append('\n');
+            rowStarted = false;
+            rows++;
+            if (chunk.length() >= COPY_CHUNK_CHARS) {
+                flush();
+            }
+        }
+
+        /**
+         * End the COPY
+         * @return rows written
+         */
+        long finish() throws SQLException {
+            flush();
+            copyIn.endCopy();
+            return rows;
+        }
+
+        /**
+         * Abort the COPY if it wasn't finished, so the connection can roll back
+         */
+        void cancel() throws SQLException {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+
+        private void separate() {
+            if (rowStarted) {
+                chunk.append('\t');
+            }
+            rowStarted = true;
+        }
+
+        private void flush() throws SQLException {
+            if (chunk.length() > 0) {
+                byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+                chunk.setLength(0);
+            }
+        }
+    }
+}
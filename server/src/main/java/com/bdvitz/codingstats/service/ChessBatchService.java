@@ -0,0 +1,184 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.model.BatchLookupResult;
+import com.bdvitz.codingstats.model.ChessStat;
+import com.bdvitz.codingstats.repository.ChessStatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Resolves stats and verification for many users in one request.
+ * Database hits are answered immediately; the rest fan out to Chess.com
+ * concurrently, bounded by the outbound limit in ChessComApiService.
+ * New batches are rejected while memory pressure is critical.
+ */
+@Service
+public class ChessBatchService implements MemoryAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChessBatchService.class);
+
+    private final ChessStatRepository chessStatRepository;
+    private final ChessStatsService chessStatsService;
+    private final TaskExecutor outboundExecutor;
+    private final int maxUsernames;
+    private final long timeoutMs;
+    private volatile MemoryPressure memoryPressure = MemoryPressure.NORMAL;
+
+    public ChessBatchService(
+            ChessStatRepository chessStatRepository,
+            ChessStatsService chessStatsService,
+            @Qualifier("outboundExecutor") TaskExecutor outboundExecutor,
+            @Value("${chess.batch.max-usernames:50}") int maxUsernames,
+            @Value("${chess.batch.timeout-ms:15000}") long timeoutMs) {
+        this.chessStatRepository = chessStatRepository;
+        this.chessStatsService = chessStatsService;
+        this.outboundExecutor = outboundExecutor;
+        this.maxUsernames = maxUsernames;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public int getMaxUsernames() {
+        return maxUsernames;
+    }
+
+    /**
+     * Get current stats for each user, stored users from the database and the rest live
+     * @return one result per distinct username, in request order
+     * @throws RejectedExecutionException while memory pressure is critical
+     */
+    public List<BatchLookupResult> getStats(List<String> usernames) {
+        LinkedHashSet<String> distinct = normalize(usernames);
+
+        Map<String, ChessStat> stored = new LinkedHashMap<>();
+        for (ChessStat chessStat : chessStatRepository.findByUsernameIn(distinct)) {
+            stored.put(chessStat.getUsername(), chessStat);
+        }
+        logger.info("Batch stats for {} users: {} from database, {} from Chess.com",
+                distinct.size(), stored.size(), distinct.size() - stored.size());
+
+        Map<String, CompletableFuture<Object>> pending = new LinkedHashMap<>();
+        for (String username : distinct) {
+            if (!stored.containsKey(username)) {
+                pending.put(username, submit(username, chessStatsService::fetchCurrentStats));
+            }
+        }
+
+        Map<String, BatchLookupResult> live = collect(pending);
+        List<BatchLookupResult> results = new ArrayList<>();
+        for (String username : distinct) {
+            ChessStat chessStat = stored.get(username);
+            results.add(chessStat != null
+                    ? BatchLookupResult.ok(username, BatchLookupResult.SOURCE_DATABASE, chessStat)
+                    : live.get(username));
+        }
+        return results;
+    }
+
+    /**
+     * Verify each user against Chess.com concurrently.
+     * Stored users are verified live as well since joined timestamps are not persisted
+     * @throws RejectedExecutionException while memory pressure is critical
+     */
+    public List<BatchLookupResult> verifyUsers(List<String> usernames) {
+        LinkedHashSet<String> distinct = normalize(usernames);
+        logger.info("Batch verification for {} users", distinct.size());
+
+        Map<String, CompletableFuture<Object>> pending = new LinkedHashMap<>();
+        for (String username : distinct) {
+            pending.put(username, submit(username, chessStatsService::verifyUserExists));
+        }
+
+        Map<String, BatchLookupResult> live = collect(pending);
+        return new ArrayList<>(live.values());
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        // Results live only for the request
+        return -1;
+    }
+
+    @Override
+    public void onMemoryPressure(MemoryPressure level) {
+        memoryPressure = level;
+    }
+
+    private LinkedHashSet<String> normalize(List<String> usernames) {
+        if (memoryPressure.isAtLeast(MemoryPressure.CRITICAL)) {
+            throw new RejectedExecutionException("Server is low on memory, try a smaller request later");
+        }
+        LinkedHashSet<String> distinct = new LinkedHashSet<>();
+        for (String username : usernames) {
+            if (username != null && !username.isBlank()) {
+                distinct.add(username.trim());
+            }
+        }
+        if (distinct.size() > maxUsernames) {
+            throw new IllegalArgumentException("At most " + maxUsernames + " usernames are allowed per batch");
+        }
+        return distinct;
+    }
+
+    private CompletableFuture<Object> submit(String username, Function<String, ?> lookup) {
+        return CompletableFuture.supplyAsync(() -> lookup.apply(username), outboundExecutor);
+    }
+
+    /**
+     * Wait for all lookups under one shared deadline and map each outcome to a per-user status
+     */
+    private Map<String, BatchLookupResult> collect(Map<String, CompletableFuture<Object>> pending) {
+        Map<String, BatchLookupResult> results = new LinkedHashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        for (Map.Entry<String, CompletableFuture<Object>> entry : pending.entrySet()) {
+            String username = entry.getKey();
+            CompletableFuture<Object> future = entry.getValue();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                Object data = future.get(remaining, TimeUnit.NANOSECONDS);
+                results.put(username, BatchLookupResult.ok(username, BatchLookupResult.SOURCE_CHESS_COM, data));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                results.put(username, BatchLookupResult.failed(username, BatchLookupResult.STATUS_TIMEOUT,
+                        "Timed out waiting for Chess.com"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.put(username, BatchLookupResult.failed(username, BatchLookupResult.STATUS_ERROR,
+                        "Interrupted"));
+            } catch (ExecutionException | CompletionException e) {
+                results.put(username, toFailure(username, e.getCause() != null ? e.getCause() : e));
+            }
+        }
+        return results;
+    }
+
+    private BatchLookupResult toFailure(String username, Throwable cause) {
+        if (cause instanceof UserNotFoundException || cause instanceof HttpClientErrorException.NotFound) {
+            return BatchLookupResult.failed(username, BatchLookupResult.STATUS_NOT_FOUND,
+                    "User does not exist on Chess.com");
+        }
+        if (cause instanceof UpstreamUnavailableException) {
+            return BatchLookupResult.failed(username, BatchLookupResult.STATUS_UNAVAILABLE, cause.getMessage());
+        }
+        logger.warn("Batch lookup failed for user: {}: {}", username, cause.getMessage());
+        return BatchLookupResult.failed(username, BatchLookupResult.STATUS_ERROR, cause.getMessage());
+    }
+}
@@ -7,12 +7,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,26 +30,105 @@ public class ChessComApiService {
     
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+
+    // Caps concurrent calls to Chess.com across all threads, serving waiting callers by lane priority
+    private final OutboundRequestScheduler outboundScheduler;
+
+    // One breaker per endpoint class so e.g. a failing games archive doesn't block profile lookups
+    private final Map<UpstreamEndpoint, CircuitBreaker> circuitBreakers = new EnumMap<>(UpstreamEndpoint.class);
+
+    private final NegativeResultCache negativeResultCache;
     
-    public ChessComApiService() {
+    public ChessComApiService(
+            NegativeResultCache negativeResultCache,
+            OutboundRequestScheduler outboundScheduler,
+            @Value("${chess.api.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${chess.api.circuit.open-duration-ms:30000}") long openDurationMs) {
         // Configure RestTemplate with timeouts to prevent infinite hangs
         SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
         factory.setConnectTimeout(2000);  // 2 seconds to establish connection
         factory.setReadTimeout(2000);     // 2 seconds to read response
         this.restTemplate = new RestTemplate(factory);
         this.objectMapper = new ObjectMapper();
+        this.outboundScheduler = outboundScheduler;
+        this.negativeResultCache = negativeResultCache;
+        for (UpstreamEndpoint endpoint : UpstreamEndpoint.values()) {
+            circuitBreakers.put(endpoint, new CircuitBreaker(endpoint.name(), failureThreshold, openDurationMs));
+        }
+    }
+
+    /**
+     * Circuit breakers by endpoint class, for health reporting
+     */
+    public Map<UpstreamEndpoint, CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableMap(circuitBreakers);
+    }
+
+    /**
+     * GET a Chess.com URL as a string through the endpoint's circuit breaker,
+     * while holding one of the outbound slots, queued in the calling thread's RequestLane.
+     * 4xx responses other than 429 count as healthy: Chess.com answered.
+     * @throws UpstreamUnavailableException if the circuit is open, no permit frees up in time,
+     *         or Chess.com fails with a network error, timeout, 429 or 5xx
+     */
+    private String getForBody(UpstreamEndpoint endpoint, String url) {
+        CircuitBreaker breaker = circuitBreakers.get(endpoint);
+        if (!breaker.tryAcquire()) {
+            throw new UpstreamUnavailableException(endpoint, true,
+                    "Chess.com API is currently unavailable (circuit open for " + endpoint + ")", null);
+        }
+
+        RequestLane lane = RequestLane.current();
+        try {
+            if (!outboundScheduler.acquire(lane)) {
+                breaker.recordIgnored();
+                throw new UpstreamUnavailableException(endpoint, false,
+                        "Chess.com API is currently unavailable (timed out waiting for a request slot)", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            breaker.recordIgnored();
+            throw new UpstreamUnavailableException(endpoint, false,
+                    "Interrupted waiting for an outbound Chess.com request slot", e);
+        }
+
+        try {
+            String body = restTemplate.getForObject(url, String.class);
+            breaker.recordSuccess();
+            return body;
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                breaker.recordFailure();
+            } else {
+                breaker.recordSuccess();
+            }
+            throw e;
+        } catch (RestClientException e) {
+            // Network errors, timeouts and 5xx responses
+            breaker.recordFailure();
+            throw new UpstreamUnavailableException(endpoint, false, "Chess.com API is currently unavailable", e);
+        } finally {
+            outboundScheduler.release(lane);
+        }
     }
     
     /**
      * Fetch chess statistics from Chess.com API
      * @param username Chess.com username
      * @return ChessStat object containing rating statistics
+     * @throws UserNotFoundException if the user doesn't exist
+     * @throws UpstreamUnavailableException if Chess.com is unreachable or the circuit is open
      */
     public ChessStat fetchChessStats(String username) throws RuntimeException {
+        if (negativeResultCache.isUnknownUser(username)) {
+            logger.info("User {} is a cached unknown user, skipping Chess.com call", username);
+            throw new UserNotFoundException(username);
+        }
+
         try {
             // Fetch player stats
             String statsUrl = CHESS_COM_API_BASE + username + "/stats";
-            String response = restTemplate.getForObject(statsUrl, String.class);
+            String response = getForBody(UpstreamEndpoint.STATS, statsUrl);
 
             if (response == null) {
                 throw new RuntimeException("Received null response from Chess.com API");
@@ -72,7 +157,11 @@ public class ChessComApiService {
 
         } catch (HttpClientErrorException.NotFound e) {
             logger.error("User not found: {}", username);
-            throw new RuntimeException("Chess.com user not found: " + username);
+            negativeResultCache.recordUnknownUser(username);
+            throw new UserNotFoundException(username);
+        } catch (UpstreamUnavailableException e) {
+            logger.warn("Chess.com unavailable fetching stats for user: {}: {}", username, e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Error fetching chess stats for user: {}", username, e);
             throw new RuntimeException("Failed to fetch chess statistics for user: " + username + ": " + e.getMessage());
@@ -138,13 +227,19 @@ public class ChessComApiService {
     /**
      * Get Chess.com user information including account creation date
      * @throws HttpClientErrorException.NotFound if user doesn't exist
-     * @throws RuntimeException if Chess.com API is unreachable or timeout occurs
+     * @throws UpstreamUnavailableException if Chess.com API is unreachable, times out, or the circuit is open
      */
     public UserVerificationResponse getUserInfo(String username) {
         logger.info("Fetching user info for: {}", username);
+        if (negativeResultCache.isUnknownUser(username)) {
+            logger.info("User {} is a cached unknown user, skipping Chess.com call", username);
+            throw (HttpClientErrorException.NotFound) HttpClientErrorException.create(
+                    HttpStatus.NOT_FOUND, "Not Found", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8);
+        }
+
         try {
             String userUrl = CHESS_COM_API_BASE + username;
-            String response = restTemplate.getForObject(userUrl, String.class);
+            String response = getForBody(UpstreamEndpoint.PROFILE, userUrl);
 
             if (response != null) {
                 JsonNode rootNode = objectMapper.readTree(response);
@@ -156,14 +251,16 @@ public class ChessComApiService {
 
             // Response was null - treat as service unavailable
             logger.warn("Received null response for user: {}", username);
-            throw new RuntimeException("Chess.com API returned null response");
+            throw new UpstreamUnavailableException(UpstreamEndpoint.PROFILE, false,
+                    "Chess.com API returned null response", null);
         } catch (HttpClientErrorException.NotFound e) {
             logger.info("User not found: {}", username);
+            negativeResultCache.recordUnknownUser(username);
             throw e; // Re-throw to be handled by controller
-        } catch (org.springframework.web.client.ResourceAccessException e) {
-            // Network timeout or connection error
-            logger.error("Network error or timeout checking user: {}", username, e);
-            throw new RuntimeException("Chess.com API is currently unavailable", e);
+        } catch (UpstreamUnavailableException e) {
+            // Network timeout, connection error, or open circuit
+            logger.error("Chess.com unavailable checking user: {}: {}", username, e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Error checking if user exists: {}", username, e);
             throw new RuntimeException("Failed to verify user with Chess.com API", e);
@@ -173,30 +270,41 @@ public class ChessComApiService {
     /**
      * Fetch list of available game archives for a user
      * @param username Chess.com username
-     * @return JsonNode containing archives array (URLs), or null if error
+     * @return JsonNode containing archives array (URLs), one per month with games
+     * @throws UserNotFoundException if the user doesn't exist
+     * @throws UpstreamUnavailableException if Chess.com is unreachable or the circuit is open
      */
     public JsonNode fetchAvailableArchives(String username) {
+        if (negativeResultCache.isUnknownUser(username)) {
+            logger.info("User {} is a cached unknown user, skipping archives call", username);
+            throw new UserNotFoundException(username);
+        }
+
         try {
             String archivesUrl = CHESS_COM_API_BASE + username + "/games/archives";
             logger.info("Fetching available archives from: {}", archivesUrl);
-            String response = restTemplate.getForObject(archivesUrl, String.class);
+            String response = getForBody(UpstreamEndpoint.ARCHIVES, archivesUrl);
 
-            if (response != null) {
-                JsonNode rootNode = objectMapper.readTree(response);
-                logger.info("Successfully fetched archives list - {} archives found",
-                    rootNode.path("archives").size());
-                return rootNode;
+            if (response == null) {
+                throw new RuntimeException("Received null response from Chess.com API");
             }
 
+            JsonNode rootNode = objectMapper.readTree(response);
+            logger.info("Successfully fetched archives list - {} archives found",
+                rootNode.path("archives").size());
+            return rootNode;
+
         } catch (HttpClientErrorException.NotFound e) {
             logger.info("No archives found for user: {}", username);
-            return null;
+            negativeResultCache.recordUnknownUser(username);
+            throw new UserNotFoundException(username);
+        } catch (UpstreamUnavailableException e) {
+            logger.warn("Chess.com unavailable fetching archives for user: {}: {}", username, e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Error fetching archives for user: {}", username, e);
-            return null;
+            throw new RuntimeException("Failed to fetch archives for user: " + username + ": " + e.getMessage());
         }
-
-        return null;
     }
 
     /**
@@ -205,8 +313,14 @@ public class ChessComApiService {
      * @param year Year (e.g., 2025)
      * @param month Month (1-12)
      * @return JsonNode containing games array, or null if no games available
+     * @throws UpstreamUnavailableException if Chess.com is unreachable or the circuit is open
      */
     public JsonNode fetchMonthlyGames(String username, int year, int month) {
+        if (negativeResultCache.isUnknownUser(username) || negativeResultCache.isEmptyMonth(username, year, month)) {
+            logger.info("No games cached for {}/{} for user: {}, skipping Chess.com call", year, month, username);
+            return null;
+        }
+
         int maxRetries = 3;
         int retryCount = 0;
         long baseDelayMs = 500; // Start with 500ms
@@ -222,12 +336,16 @@ public class ChessComApiService {
                 }
                 
                 logger.info("Fetching games from: {} (attempt {}/{})", gamesUrl, retryCount + 1, maxRetries);
-                String response = restTemplate.getForObject(gamesUrl, String.class);
+                String response = getForBody(UpstreamEndpoint.GAMES, gamesUrl);
 
                 if (response != null) {
                     JsonNode rootNode = objectMapper.readTree(response);
+                    int gameCount = rootNode.path("games").size();
                     logger.info("Successfully fetched games for {}/{} - {} games found",
-                        year, month, rootNode.path("games").size());
+                        year, month, gameCount);
+                    if (gameCount == 0) {
+                        negativeResultCache.recordEmptyMonth(username, year, month);
+                    }
                     return rootNode;
                 }
 
@@ -256,12 +374,17 @@ public class ChessComApiService {
                     }
                 } else if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
                     logger.info("No games found for {}/{} for user: {}", year, month, username);
+                    negativeResultCache.recordEmptyMonth(username, year, month);
                     return null;
                 } else {
                     logger.error("HTTP error fetching games for {}/{}: {} - {}",
                         year, month, e.getStatusCode(), e.getMessage());
                     return null;
                 }
+            } catch (UpstreamUnavailableException e) {
+                // An outage is not an empty month: callers must not answer or store "no games"
+                logger.warn("Chess.com unavailable fetching games for {}/{}: {}", year, month, e.getMessage());
+                throw e;
             } catch (Exception e) {
                 logger.error("Error fetching games for {}/{}: {}", year, month, e.getMessage());
                 return null;
@@ -1,20 +1,26 @@
 package com.bdvitz.codingstats.service;
 
 import com.bdvitz.codingstats.model.ChessDailyRating;
+import com.bdvitz.codingstats.model.Player;
+import com.bdvitz.codingstats.model.RatingCursor;
+import com.bdvitz.codingstats.model.RatingPage;
 import com.bdvitz.codingstats.repository.ChessDailyRatingRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class ChessHistoryService {
@@ -23,11 +29,35 @@ public class ChessHistoryService {
     private static final ZoneId UTC = ZoneOffset.UTC;
 
     private final ChessComApiService chessComApiService;
+    private final ArchiveMonthIndex archiveMonthIndex;
     private final ChessDailyRatingRepository dailyRatingRepository;
-
-    public ChessHistoryService(ChessComApiService chessComApiService, ChessDailyRatingRepository dailyRatingRepository) {
+    private final RatingWriteBuffer ratingWriteBuffer;
+    private final PlayerRegistry playerRegistry;
+    private final ReadOnlyTransactions readOnlyTransactions;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    // Serializes ingestion of the same (user, month); different keys run in parallel
+    private final StripedLock ingestLocks;
+
+    public ChessHistoryService(
+            ChessComApiService chessComApiService,
+            ArchiveMonthIndex archiveMonthIndex,
+            ChessDailyRatingRepository dailyRatingRepository,
+            RatingWriteBuffer ratingWriteBuffer,
+            PlayerRegistry playerRegistry,
+            ReadOnlyTransactions readOnlyTransactions,
+            @Value("${chess.pagination.default-page-size:500}") int defaultPageSize,
+            @Value("${chess.pagination.max-page-size:5000}") int maxPageSize,
+            @Value("${chess.ingest.lock-stripes:64}") int lockStripes) {
         this.chessComApiService = chessComApiService;
+        this.archiveMonthIndex = archiveMonthIndex;
         this.dailyRatingRepository = dailyRatingRepository;
+        this.ratingWriteBuffer = ratingWriteBuffer;
+        this.playerRegistry = playerRegistry;
+        this.readOnlyTransactions = readOnlyTransactions;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.ingestLocks = new StripedLock(lockStripes);
     }
 
     /**
@@ -37,18 +67,25 @@ public class ChessHistoryService {
      * @param year Year (e.g., 2023)
      * @param month Month (1-12)
      * @return List of daily ratings for the month
+     * @throws UpstreamUnavailableException if a guest month can't be fetched because Chess.com is unavailable
      */
     public List<ChessDailyRating> getMonthHistory(String username, int year, int month) {
         logger.info("Getting history for user: {} for {}/{}", username, year, month);
 
-        // Check if user exists in database (has any historical data)
-        boolean userExists = dailyRatingRepository.existsByUsername(username);
+        LocalDate startDate = LocalDate.of(year, month, 1);
+        LocalDate endDate = startDate.plusMonths(1).minusDays(1);
+
+        // Stored month from the read pool; null if the user has no stored history
+        List<ChessDailyRating> stored = readOnlyTransactions.execute(() -> playerRegistry.findId(username)
+                .filter(dailyRatingRepository::existsByPlayerId)
+                .map(id -> dailyRatingRepository.findByPlayerIdAndDateBetween(id, startDate, endDate))
+                .orElse(null));
 
-        if (userExists) {
+        // Check if user exists in database (has any historical data, stored or pending write)
+        if (stored != null || ratingWriteBuffer.hasPendingRatings(username)) {
             // User exists in database, return data from DB (even if empty for this month)
-            LocalDate startDate = LocalDate.of(year, month, 1);
-            LocalDate endDate = startDate.plusMonths(1).minusDays(1);
-            List<ChessDailyRating> existingHistory = dailyRatingRepository.findByUsernameAndDateBetween(username, startDate, endDate);
+            List<ChessDailyRating> existingHistory = ratingWriteBuffer.overlayPending(
+                    username, startDate, endDate, stored != null ? stored : List.of());
             logger.info("Found {} existing records in database for {}/{}", existingHistory.size(), year, month);
             return existingHistory;
         }
@@ -60,10 +97,12 @@ public class ChessHistoryService {
 
     /**
      * Fetch rating history for a month from Chess.com API without storing in database
+     * Months the user's archive list doesn't have are answered empty without a Chess.com call
      * @param username Chess.com username
      * @param year Year (e.g., 2023)
      * @param month Month (1-12)
      * @return List of daily ratings for the month
+     * @throws UpstreamUnavailableException if Chess.com is unreachable or the circuit is open
      */
     public List<ChessDailyRating> fetchMonthHistory(String username, int year, int month) {
         logger.info("Fetching history from Chess.com API for user: {} for {}/{}", username, year, month);
@@ -71,14 +110,24 @@ public class ChessHistoryService {
         List<ChessDailyRating> dailyRatings = new ArrayList<>();
 
         try {
+            if (!archiveMonthIndex.hasArchive(username, year, month).orElse(true)) {
+                logger.info("No archive for {}/{} for user: {}, skipping Chess.com call", year, month, username);
+                return dailyRatings;
+            }
+
             JsonNode monthData = chessComApiService.fetchMonthlyGames(username, year, month);
 
             if (monthData != null) {
+                if (monthData.path("games").size() > 0) {
+                    archiveMonthIndex.recordMonth(username, year, month);
+                }
                 processMonthlyGames(username, monthData, dailyRatings);
                 logger.info("Processed {}/{}: {} daily ratings generated", year, month, dailyRatings.size());
             } else {
                 logger.info("No games found for {}/{}", year, month);
             }
+        } catch (UpstreamUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error fetching month {}/{}: {}", year, month, e.getMessage());
         }
@@ -88,34 +137,87 @@ public class ChessHistoryService {
 
     /**
      * Fetch rating history for a month from Chess.com API and save to database
+     * Ratings go through the write-behind buffer, which merges them into existing rows in batches.
+     * Concurrent calls for the same user and month run one after the other (the later one sees a
+     * complete month, never a half-queued one); other users and months are not blocked.
      * @param username Chess.com username
      * @param year Year (e.g., 2023)
      * @param month Month (1-12)
-     * @return List of daily ratings that were saved
+     * @return List of daily ratings that were queued for saving
+     * @throws UpstreamUnavailableException if Chess.com is unreachable or the circuit is open (nothing is queued)
      */
-    @Transactional
     public List<ChessDailyRating> fetchAndUpdateMonthHistory(String username, int year, int month) {
         logger.info("Fetching and updating history for user: {} for {}/{}", username, year, month);
 
-        List<ChessDailyRating> dailyRatings = fetchMonthHistory(username, year, month);
+        ReentrantLock lock = ingestLocks.get(Player.canonicalName(username) + ":" + YearMonth.of(year, month));
+        lock.lock();
+        try {
+            List<ChessDailyRating> dailyRatings = fetchMonthHistory(username, year, month);
+            ratingWriteBuffer.enqueueRatings(dailyRatings);
 
-        // Save to database
-        for (ChessDailyRating rating : dailyRatings) {
-            Optional<ChessDailyRating> existingOpt = dailyRatingRepository.findByUsernameAndDate(username, rating.getDate());
+            logger.info("Queued {} daily ratings for saving for {}/{}", dailyRatings.size(), year, month);
+            return dailyRatings;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            if (existingOpt.isPresent()) {
-                ChessDailyRating existing = existingOpt.get();
-                if (rating.getRapidRating() != null) existing.setRapidRating(rating.getRapidRating());
-                if (rating.getBlitzRating() != null) existing.setBlitzRating(rating.getBlitzRating());
-                if (rating.getBulletRating() != null) existing.setBulletRating(rating.getBulletRating());
-                dailyRatingRepository.save(existing);
-            } else {
-                dailyRatingRepository.save(rating);
-            }
+    /**
+     * Months that have a Chess.com game archive for a user, oldest first, so clients only ask for those
+     * @throws UserNotFoundException if the user doesn't exist
+     * @throws UpstreamUnavailableException if Chess.com is unreachable or the circuit is open
+     */
+    public List<YearMonth> getArchiveMonths(String username) {
+        return archiveMonthIndex.getMonths(username);
+    }
+
+    /**
+     * One page of stored daily ratings between start and end (inclusive), ordered by (player id, date).
+     * Keyset pagination: pass back nextCursor to get the following page; every page is an index seek,
+     * so deep pages cost the same as the first. Never calls Chess.com.
+     * @param usernames users to include, or null/empty for all stored users
+     * @param cursor nextCursor from the previous page, or null for the first page
+     * @param pageSize rows per page, or null for chess.pagination.default-page-size
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public RatingPage getRatingsPage(Collection<String> usernames, LocalDate start, LocalDate end,
+                                     String cursor, Integer pageSize) {
+        int size = Math.max(1, Math.min(pageSize != null ? pageSize : defaultPageSize, maxPageSize));
+        RatingCursor after = cursor != null && !cursor.isBlank()
+                ? RatingCursor.decode(cursor)
+                : new RatingCursor(0, start.minusDays(1));
+        // One extra row tells whether another page follows
+        Limit limit = Limit.of(size + 1);
+
+        List<ChessDailyRating> rows = readOnlyTransactions.execute(() -> findPage(usernames, after, start, end, limit));
+
+        if (rows.size() <= size) {
+            return new RatingPage(rows, null);
         }
+        List<ChessDailyRating> page = rows.subList(0, size);
+        return new RatingPage(page, RatingCursor.after(page.get(size - 1)).encode());
+    }
 
-        logger.info("Saved {} daily ratings to database for {}/{}", dailyRatings.size(), year, month);
-        return dailyRatings;
+    private List<ChessDailyRating> findPage(Collection<String> usernames, RatingCursor after,
+                                            LocalDate start, LocalDate end, Limit limit) {
+        if (usernames == null || usernames.isEmpty()) {
+            return dailyRatingRepository.findPageAfter(after.getPlayerId(), after.getDate(), start, end, limit);
+        }
+
+        // Usernames that aren't stored players have no rows
+        List<Integer> playerIds = List.copyOf(playerRegistry.findIds(usernames).values());
+        if (playerIds.isEmpty()) {
+            return List.of();
+        }
+        if (playerIds.size() == 1) {
+            int playerId = playerIds.get(0);
+            LocalDate afterDate = after.getPlayerId() == playerId && !after.getDate().isBefore(start)
+                    ? after.getDate()
+                    : start.minusDays(1);
+            return dailyRatingRepository.findPageByPlayerId(playerId, afterDate, end, limit);
+        }
+        return dailyRatingRepository.findPageForPlayersAfter(playerIds, after.getPlayerId(), after.getDate(),
+                start, end, limit);
     }
 
     /**
@@ -5,8 +5,21 @@ import com.bdvitz.codingstats.model.UserVerificationResponse;
 import com.bdvitz.codingstats.repository.ChessStatRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class ChessStatsService {
@@ -15,6 +28,23 @@ public class ChessStatsService {
 
     private final ChessStatRepository chessStatRepository;
     private final ChessComApiService chessComApiService;
+    private final RatingWriteBuffer ratingWriteBuffer;
+    private final ReadOnlyTransactions readOnlyTransactions;
+    private final TaskExecutor refreshExecutor;
+    private final Duration staleAfter;
+
+    // Usernames with a background refresh currently queued or running
+    private final Set<String> refreshesInFlight = ConcurrentHashMap.newKeySet();
+
+    // Last successful live fetch per guest user, served while Chess.com is unavailable
+    private static final int LAST_KNOWN_GOOD_CAPACITY = 200;
+    private final Map<String, ChessStat> lastKnownGood = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ChessStat> eldest) {
+                    return size() > LAST_KNOWN_GOOD_CAPACITY;
+                }
+            });
 
     /**
     * Autowired is optional on constructors with a single constructor
@@ -25,35 +55,104 @@ public class ChessStatsService {
     */
     public ChessStatsService(
             ChessStatRepository chessStatRepository,
-            ChessComApiService chessComApiService) {
+            ChessComApiService chessComApiService,
+            RatingWriteBuffer ratingWriteBuffer,
+            ReadOnlyTransactions readOnlyTransactions,
+            @Qualifier("refreshExecutor") TaskExecutor refreshExecutor,
+            @Value("${chess.stats.stale-after-minutes:360}") long staleAfterMinutes) {
         this.chessStatRepository = chessStatRepository;
         this.chessComApiService = chessComApiService;
+        this.ratingWriteBuffer = ratingWriteBuffer;
+        this.readOnlyTransactions = readOnlyTransactions;
+        this.refreshExecutor = refreshExecutor;
+        this.staleAfter = Duration.ofMinutes(staleAfterMinutes);
     }
     
     /**
      * Get current chess statistics, retrieving from repository if available
      * Otherwise fetch live stats from Chess.com API
+     *
+     * Stored stats are served immediately (stale-while-revalidate): once they are older
+     * than chess.stats.stale-after-minutes a background refresh is queued, at most one per user
      */
     public ChessStat getCurrentStats(String username) {
         logger.info("Getting current stats for user: {}", username);
-        return chessStatRepository.findByUsername(username).orElse(fetchCurrentStats(username));
+        Optional<ChessStat> pending = ratingWriteBuffer.getPendingStats(username);
+        if (pending.isPresent()) {
+            return pending.get();
+        }
+
+        Optional<ChessStat> stored = readOnlyTransactions.execute(() -> chessStatRepository.findByUsername(username));
+        if (stored.isEmpty()) {
+            return fetchCurrentStats(username);
+        }
+
+        ChessStat chessStat = stored.get();
+        if (isStale(chessStat)) {
+            scheduleBackgroundRefresh(username);
+        }
+        return chessStat;
+    }
+
+    /**
+     * Age of stored stats; rows written before fetched_at existed fall back to last_updated
+     */
+    public Duration getAge(ChessStat chessStat) {
+        Instant fetchedAt = chessStat.getFetchedAt();
+        if (fetchedAt == null && chessStat.getLastUpdated() != null) {
+            fetchedAt = chessStat.getLastUpdated().atStartOfDay(ZoneId.systemDefault()).toInstant();
+        }
+        if (fetchedAt == null) {
+            return staleAfter;
+        }
+        Duration age = Duration.between(fetchedAt, Instant.now());
+        return age.isNegative() ? Duration.ZERO : age;
+    }
+
+    /**
+     * Whether stored stats are older than the configured TTL
+     */
+    public boolean isStale(ChessStat chessStat) {
+        return getAge(chessStat).compareTo(staleAfter) >= 0;
+    }
+
+    /**
+     * Queue a refresh from Chess.com unless one is already pending for this user
+     */
+    private void scheduleBackgroundRefresh(String username) {
+        if (!refreshesInFlight.add(username)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    fetchAndUpdateCurrentStats(username);
+                    logger.info("Background refresh completed for user: {}", username);
+                } catch (Exception e) {
+                    logger.warn("Background refresh failed for user: {}: {}", username, e.getMessage());
+                } finally {
+                    refreshesInFlight.remove(username);
+                }
+            });
+            logger.info("Stored stats for user: {} are stale, background refresh queued", username);
+        } catch (RejectedExecutionException e) {
+            refreshesInFlight.remove(username);
+            logger.warn("Refresh queue full, serving stale stats for user: {}", username);
+        }
     }
 
     /**
      * Update current chess statistics in repository with live data from Chess.com API
      * and return the updated stats object
+     * The write goes through the write-behind buffer; reads see it immediately
      */
-    @Transactional
     public ChessStat fetchAndUpdateCurrentStats(String username) {
         ChessStat chessStat = fetchCurrentStats(username);
         logger.info("Updating repository with live stats for user: {}", username);
-        
-        // Preserve existing ID to avoid delete+insert, just update in place
-        chessStatRepository.findByUsername(username).ifPresent(existingChessStat ->
-            chessStat.setId(existingChessStat.getId())
-        );
 
-        return chessStatRepository.save(chessStat);
+        ratingWriteBuffer.enqueueStats(chessStat);
+        return chessStat;
     }
 
     /**
@@ -62,7 +161,41 @@ public class ChessStatsService {
     public ChessStat fetchCurrentStats(String username) {
         logger.info("Fetching live chess.com api stats for user: {}", username);
         // Fetch stats from Chess.com API
-        return chessComApiService.fetchChessStats(username);
+        ChessStat chessStat = chessComApiService.fetchChessStats(username);
+        lastKnownGood.put(username, chessStat);
+        return chessStat;
+    }
+
+    /**
+     * Last-known-good stats to serve while Chess.com is unavailable:
+     * the stored row if the user is tracked, otherwise the last successful live fetch
+     */
+    public Optional<ChessStat> getLastKnownStats(String username) {
+        Optional<ChessStat> pending = ratingWriteBuffer.getPendingStats(username);
+        if (pending.isPresent()) {
+            return pending;
+        }
+        Optional<ChessStat> stored = chessStatRepository.findByUsername(username);
+        if (stored.isPresent()) {
+            return stored;
+        }
+        return Optional.ofNullable(lastKnownGood.get(username));
+    }
+
+    /**
+     * Whether every Chess.com circuit breaker is closed
+     */
+    public boolean isUpstreamAvailable() {
+        return chessComApiService.getCircuitBreakers().values().stream()
+                .allMatch(breaker -> breaker.getState() == CircuitBreaker.State.CLOSED);
+    }
+
+    /**
+     * Time until the breaker for an endpoint class will probe Chess.com again
+     */
+    public long getUpstreamRetryAfterMs(UpstreamEndpoint endpoint) {
+        CircuitBreaker breaker = chessComApiService.getCircuitBreakers().get(endpoint);
+        return breaker != null ? breaker.getRetryAfterMs() : 0;
     }
 
     /**
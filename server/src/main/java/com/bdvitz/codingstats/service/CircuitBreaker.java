@@ -0,0 +1,116 @@
+package com.bdvitz.codingstats.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Minimal lock-free circuit breaker.
+ *
+ * CLOSED: calls pass; after failureThreshold consecutive failures the breaker opens.
+ * OPEN: calls are rejected until openDurationMs has elapsed.
+ * HALF_OPEN: exactly one probe call is let through; success closes the breaker, failure reopens it.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationMs;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMs) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * Ask permission for a call. Every permitted call must end with
+     * recordSuccess, recordFailure or recordIgnored.
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+
+        if (current == State.OPEN && System.currentTimeMillis() - openedAt.get() >= openDurationMs) {
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                logger.info("Circuit {} half-open, probing Chess.com", name);
+            }
+        }
+
+        if (state.get() == State.HALF_OPEN && probeInFlight.compareAndSet(false, true)) {
+            return true;
+        }
+
+        rejectedCalls.incrementAndGet();
+        return false;
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            logger.info("Circuit {} closed, Chess.com is responding again", name);
+        }
+        probeInFlight.set(false);
+    }
+
+    public void recordFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state.get();
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= failureThreshold)) {
+            openedAt.set(System.currentTimeMillis());
+            state.set(State.OPEN);
+            logger.warn("Circuit {} opened after {} consecutive failures, failing fast for {} ms",
+                    name, failures, openDurationMs);
+        }
+        probeInFlight.set(false);
+    }
+
+    /**
+     * The permitted call never reached Chess.com (e.g. local queueing timeout)
+     */
+    public void recordIgnored() {
+        probeInFlight.set(false);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    /**
+     * Milliseconds until an open breaker will allow a probe, 0 otherwise
+     */
+    public long getRetryAfterMs() {
+        if (state.get() != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openDurationMs - (System.currentTimeMillis() - openedAt.get()));
+    }
+}
@@ -0,0 +1,294 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.event.ChessStatUpdatedEvent;
+import com.bdvitz.codingstats.event.DailyRatingsUpdatedEvent;
+import com.bdvitz.codingstats.event.RemoteDataChangedEvent;
+import com.bdvitz.codingstats.model.ChessDailyRating;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Coordinates instances sharing one PostgreSQL database.
+ *
+ * Leader election: the instance holding the session-level advisory lock chess.cluster.leader-lock-id
+ * runs cluster-wide scheduled jobs (ChessStatsScheduler). The lock is held on a dedicated connection
+ * outside the Hikari pool; if that connection drops, Postgres releases the lock and another instance
+ * takes over on its next poll. The leader checks on every poll that its session still holds the lock
+ * (a real round trip, bounded by chess.cluster.socket-timeout-seconds), and steps down on a miss or error.
+ *
+ * Invalidation: after this instance writes stats or daily ratings it sends a NOTIFY on
+ * chess.cluster.channel; other instances LISTEN on the same dedicated connection and publish a
+ * RemoteDataChangedEvent so in-memory state (negative cache, stream subscribers) catches up.
+ *
+ * Only created with chess.cluster.enabled=true (multi-instance deploys opt in); callers treat a missing
+ * coordinator as leader.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "chess.cluster.enabled", havingValue = "true")
+public class ClusterCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String channel;
+    private final long leaderLockId;
+    private final int pollIntervalMs;
+    private final long reconnectDelayMs;
+    private final int socketTimeoutSeconds;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile boolean running;
+    private volatile boolean leader;
+    private Thread listenerThread;
+    // Only used by the listener thread
+    private Connection connection;
+
+    public ClusterCoordinator(
+            JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper,
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password,
+            @Value("${chess.cluster.channel:chess_data_changed}") String channel,
+            @Value("${chess.cluster.leader-lock-id:7402163}") long leaderLockId,
+            @Value("${chess.cluster.poll-interval-ms:5000}") int pollIntervalMs,
+            @Value("${chess.cluster.reconnect-delay-ms:10000}") long reconnectDelayMs,
+            @Value("${chess.cluster.socket-timeout-seconds:10}") int socketTimeoutSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.channel = channel;
+        this.leaderLockId = leaderLockId;
+        this.pollIntervalMs = pollIntervalMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+        this.socketTimeoutSeconds = socketTimeoutSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = Thread.ofPlatform().name("cluster-coordinator").daemon().start(this::listen);
+        logger.info("Cluster coordinator started as node {}", nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            try {
+                listenerThread.join(pollIntervalMs + 1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.info("Cluster coordinator for node {} stopped", nodeId);
+    }
+
+    /**
+     * Whether this instance should run cluster-wide scheduled jobs
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @EventListener
+    public void onChessStatUpdated(ChessStatUpdatedEvent event) {
+        ObjectNode message = message(RemoteDataChangedEvent.Type.STATS, event.getUsername());
+        notifyOthers(message);
+    }
+
+    @EventListener
+    public void onDailyRatingsUpdated(DailyRatingsUpdatedEvent event) {
+        List<ChessDailyRating> ratings = event.getRatings();
+        if (ratings.isEmpty()) {
+            return;
+        }
+        // Ratings are sorted by date
+        ObjectNode message = message(RemoteDataChangedEvent.Type.RATINGS, event.getUsername());
+        message.put("startDate", ratings.get(0).getDate().toString());
+        message.put("endDate", ratings.get(ratings.size() - 1).getDate().toString());
+        notifyOthers(message);
+    }
+
+    private ObjectNode message(RemoteDataChangedEvent.Type type, String changedUsername) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("node", nodeId);
+        message.put("type", type.name());
+        message.put("username", changedUsername);
+        return message;
+    }
+
+    private void notifyOthers(ObjectNode message) {
+        try {
+            // Through the pool: the listener connection is blocked waiting for notifications
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", resultSet -> null, channel, message.toString());
+        } catch (Exception e) {
+            // Other instances catch up on their next read from the database
+            logger.warn("Failed to notify other instances of {}: {}", message, e.getMessage());
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try {
+                if (connection == null) {
+                    connect();
+                }
+                if (leader) {
+                    confirmLeadership();
+                } else {
+                    tryAcquireLeadership();
+                }
+                PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications(pollIntervalMs);
+                if (notifications != null) {
+                    for (PGNotification notification : notifications) {
+                        handle(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Cluster connection lost ({}), reconnecting in {} ms", e.getMessage(), reconnectDelayMs);
+                disconnect();
+                sleep(reconnectDelayMs);
+            } catch (RuntimeException e) {
+                logger.error("Error handling cluster notification", e);
+            }
+        }
+        disconnect();
+    }
+
+    private void connect() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        // A half-open session fails a round trip within the timeout instead of blocking the listener
+        properties.setProperty("socketTimeout", String.valueOf(socketTimeoutSeconds));
+        properties.setProperty("tcpKeepAlive", "true");
+        connection = DriverManager.getConnection(url, properties);
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + channel);
+        }
+        logger.info("Node {} listening on channel {}", nodeId, channel);
+    }
+
+    private void tryAcquireLeadership() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, leaderLockId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next() && resultSet.getBoolean(1)) {
+                    leader = true;
+                    logger.info("Node {} is now the scheduler leader", nodeId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Round trip to the server checking that this session still holds the leader lock. Waiting for
+     * notifications sends nothing, so without it a dead session (whose lock Postgres has released to
+     * another node) would go unnoticed and two nodes would run the scheduled jobs.
+     */
+    private void confirmLeadership() throws SQLException {
+        // A bigint advisory key is split into classid (high 32 bits) and objid (low 32 bits), objsubid 1
+        String sql = "SELECT EXISTS (SELECT 1 FROM pg_locks WHERE locktype = 'advisory' AND objsubid = 1"
+                + " AND classid::bigint = ? AND objid::bigint = ? AND pid = pg_backend_pid() AND granted)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, leaderLockId >>> 32);
+            statement.setLong(2, leaderLockId & 0xFFFFFFFFL);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || !resultSet.getBoolean(1)) {
+                    leader = false;
+                    logger.warn("Node {} no longer holds the leader lock, giving up scheduler leadership", nodeId);
+                }
+            }
+        }
+    }
+
+    private void disconnect() {
+        if (leader) {
+            logger.info("Node {} gave up scheduler leadership", nodeId);
+        }
+        leader = false;
+        if (connection != null) {
+            try {
+                // Closing the session releases the advisory lock
+                connection.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing cluster connection", e);
+            }
+            connection = null;
+        }
+    }
+
+    private void handle(String payload) {
+        try {
+            JsonNode message = objectMapper.readTree(payload);
+            if (nodeId.equals(message.path("node").asText())) {
+                return;
+            }
+            RemoteDataChangedEvent event = new RemoteDataChangedEvent(
+                    RemoteDataChangedEvent.Type.valueOf(message.path("type").asText()),
+                    message.path("username").asText(),
+                    message.hasNonNull("startDate") ? LocalDate.parse(message.get("startDate").asText()) : null,
+                    message.hasNonNull("endDate") ? LocalDate.parse(message.get("endDate").asText()) : null);
+            logger.debug("Node {} received {} change for {} from node {}",
+                    nodeId, event.getType(), event.getUsername(), message.path("node").asText());
+            eventPublisher.publishEvent(event);
+        } catch (Exception e) {
+            logger.warn("Ignoring malformed cluster notification {}: {}", payload, e.getMessage());
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
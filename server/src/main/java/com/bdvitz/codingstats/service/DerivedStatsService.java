@@ -0,0 +1,237 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.event.DailyRatingsUpdatedEvent;
+import com.bdvitz.codingstats.model.ChessDailyRating;
+import com.bdvitz.codingstats.model.Player;
+import com.bdvitz.codingstats.model.PlayerDerivedStats;
+import com.bdvitz.codingstats.model.RatingSpan;
+import com.bdvitz.codingstats.repository.ChessDailyRatingRepository;
+import com.bdvitz.codingstats.repository.PlayerDerivedStatsRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Maintains PlayerDerivedStats (peaks/lows, streaks, yearly first/last ratings) from daily rating writes.
+ *
+ * Ratings for days after the last folded day are applied incrementally, O(new rows).
+ * A write that changes an already folded day (e.g. more games later the same day, or a back-filled
+ * month) rebuilds that user from the stored history, since a lowered peak can't be undone in place.
+ * The write-behind buffer only publishes rows that are new or actually changed.
+ * Updates and rebuilds of the same user take one of a set of striped locks, so different users
+ * proceed in parallel and no monitor is held across database I/O (which would pin virtual threads).
+ */
+@Service
+public class DerivedStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DerivedStatsService.class);
+    private static final int LOCK_STRIPES = 64;
+
+    private final PlayerDerivedStatsRepository derivedStatsRepository;
+    private final ChessDailyRatingRepository dailyRatingRepository;
+    private final PlayerRegistry playerRegistry;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    // Serializes updates and rebuilds per canonical username
+    private final StripedLock userLocks = new StripedLock(LOCK_STRIPES);
+
+    public DerivedStatsService(
+            PlayerDerivedStatsRepository derivedStatsRepository,
+            ChessDailyRatingRepository dailyRatingRepository,
+            PlayerRegistry playerRegistry,
+            ObjectMapper objectMapper,
+            ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.derivedStatsRepository = derivedStatsRepository;
+        this.dailyRatingRepository = dailyRatingRepository;
+        this.playerRegistry = playerRegistry;
+        this.objectMapper = objectMapper;
+        // The embedded storage profile has no transaction manager
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        this.transactionTemplate = manager != null ? new TransactionTemplate(manager) : null;
+    }
+
+    @EventListener
+    public void onDailyRatingsUpdated(DailyRatingsUpdatedEvent event) {
+        try {
+            update(event.getUsername(), event.getRatings());
+        } catch (Exception e) {
+            // The next write or a rebuild repairs the record
+            logger.error("Failed to update derived stats for {}", event.getUsername(), e);
+        }
+    }
+
+    /**
+     * Stored derived stats for a user. Users with history but no record yet are built once on first read.
+     */
+    public Optional<PlayerDerivedStats> getDerivedStats(String username) {
+        String name = Player.canonicalName(username);
+        Optional<PlayerDerivedStats> stored = derivedStatsRepository.findByUsername(name);
+        boolean hasHistory = playerRegistry.findId(name).map(dailyRatingRepository::existsByPlayerId).orElse(false);
+        if (stored.isPresent() || !hasHistory) {
+            return stored;
+        }
+        return Optional.of(withUserLock(name, () -> inTransaction(() ->
+                saveRebuilt(name, derivedStatsRepository.findByUsername(name)))));
+    }
+
+    /**
+     * Fold newly written ratings into a user's derived stats
+     */
+    public void update(String username, List<ChessDailyRating> ratings) {
+        if (ratings.isEmpty()) {
+            return;
+        }
+        withUserLock(Player.canonicalName(username), () -> inTransaction(() -> {
+            Optional<PlayerDerivedStats> existing = derivedStatsRepository.findByUsername(username);
+            LocalDate lastDate = existing.map(PlayerDerivedStats::getLastDate).orElse(null);
+            boolean appendOnly = existing.isPresent()
+                    && ratings.stream().allMatch(rating -> lastDate == null || rating.getDate().isAfter(lastDate));
+
+            if (!appendOnly) {
+                logger.debug("Rebuilding derived stats for {}", username);
+                return saveRebuilt(username, existing);
+            }
+
+            PlayerDerivedStats stats = existing.get();
+            ratings.stream()
+                    .sorted(Comparator.comparing(ChessDailyRating::getDate))
+                    .forEach(rating -> fold(stats, rating));
+            stats.setUpdatedAt(Instant.now());
+            return derivedStatsRepository.save(stats);
+        }));
+    }
+
+    /**
+     * Recompute a user's derived stats from the full history and report whether the
+     * incrementally maintained record matched
+     * @return username, consistent, and the differing fields if any
+     */
+    public Map<String, Object> rebuild(String username) {
+        String name = Player.canonicalName(username);
+        return withUserLock(name, () -> inTransaction(() -> {
+            Optional<PlayerDerivedStats> existing = derivedStatsRepository.findByUsername(name);
+            JsonNode before = existing.map(this::comparable).orElse(null);
+            PlayerDerivedStats rebuilt = saveRebuilt(name, existing);
+
+            List<String> differences = new ArrayList<>();
+            if (before == null) {
+                differences.add("missing");
+            } else {
+                JsonNode after = comparable(rebuilt);
+                Iterator<String> fields = after.fieldNames();
+                while (fields.hasNext()) {
+                    String field = fields.next();
+                    if (!after.get(field).equals(before.get(field))) {
+                        differences.add(field);
+                    }
+                }
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("username", name);
+            result.put("consistent", differences.isEmpty());
+            result.put("differences", differences);
+            return result;
+        }));
+    }
+
+    /**
+     * Rebuild every user with stored daily ratings
+     */
+    public List<Map<String, Object>> rebuildAll() {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Integer playerId : dailyRatingRepository.findDistinctPlayerIds()) {
+            results.add(rebuild(playerRegistry.getUsername(playerId)));
+        }
+        return results;
+    }
+
+    private PlayerDerivedStats saveRebuilt(String username, Optional<PlayerDerivedStats> existing) {
+        PlayerDerivedStats stats = new PlayerDerivedStats(username);
+        existing.ifPresent(current -> stats.setId(current.getId()));
+        Optional<Integer> playerId = playerRegistry.findId(username);
+        List<ChessDailyRating> history = playerId.isPresent()
+                ? dailyRatingRepository.findByPlayerIdOrderByDateAsc(playerId.get())
+                : List.of();
+        for (ChessDailyRating rating : history) {
+            fold(stats, rating);
+        }
+        stats.setUpdatedAt(Instant.now());
+        return derivedStatsRepository.save(stats);
+    }
+
+    /**
+     * Apply one day; days must be folded in ascending date order
+     */
+    private static void fold(PlayerDerivedStats stats, ChessDailyRating rating) {
+        LocalDate date = rating.getDate();
+        LocalDate lastDate = stats.getLastDate();
+
+        stats.setDaysPlayed(stats.getDaysPlayed() + 1);
+        if (stats.getFirstDate() == null) {
+            stats.setFirstDate(date);
+        }
+        stats.setCurrentStreak(lastDate != null && lastDate.plusDays(1).equals(date) ? stats.getCurrentStreak() + 1 : 1);
+        if (stats.getCurrentStreak() > stats.getLongestStreak()) {
+            stats.setLongestStreak(stats.getCurrentStreak());
+            stats.setLongestStreakEnd(date);
+        }
+        stats.setLastDate(date);
+
+        stats.getRapid().include(rating.getRapidRating(), date);
+        stats.getBlitz().include(rating.getBlitzRating(), date);
+        stats.getBullet().include(rating.getBulletRating(), date);
+
+        TreeMap<String, RatingSpan> year = stats.getYearly().computeIfAbsent(date.getYear(), y -> new TreeMap<>());
+        includeYearly(year, "rapid", rating.getRapidRating(), date);
+        includeYearly(year, "blitz", rating.getBlitzRating(), date);
+        includeYearly(year, "bullet", rating.getBulletRating(), date);
+    }
+
+    private static void includeYearly(TreeMap<String, RatingSpan> year, String timeClass, Integer rating, LocalDate date) {
+        if (rating != null) {
+            year.computeIfAbsent(timeClass, c -> new RatingSpan()).include(rating, date);
+        }
+    }
+
+    private JsonNode comparable(PlayerDerivedStats stats) {
+        ObjectNode node = objectMapper.valueToTree(stats);
+        node.remove("id");
+        node.remove("updatedAt");
+        return node;
+    }
+
+    private <T> T withUserLock(String name, Supplier<T> work) {
+        ReentrantLock lock = userLocks.get(name);
+        lock.lock();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate != null ? transactionTemplate.execute(status -> work.get()) : work.get();
+    }
+}
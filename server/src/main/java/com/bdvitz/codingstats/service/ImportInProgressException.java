@@ -0,0 +1,11 @@
+package com.bdvitz.codingstats.service;
+
+/**
+ * Thrown when a bulk import is requested while another one is running
+ */
+public class ImportInProgressException extends RuntimeException {
+
+    public ImportInProgressException() {
+        super("An import is already running");
+    }
+}
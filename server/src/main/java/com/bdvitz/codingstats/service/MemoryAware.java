@@ -0,0 +1,19 @@
+package com.bdvitz.codingstats.service;
+
+/**
+ * A component whose in-memory state MemoryGovernor reports (by bean name) and can ask to shrink
+ */
+public interface MemoryAware {
+
+    /**
+     * Rough heap retained by this component in bytes, or -1 if it holds nothing worth reporting
+     */
+    long estimateRetainedBytes();
+
+    /**
+     * The pressure level changed. Called on the JVM notification thread or the scheduler:
+     * adjust limits and drop state, but don't block or do I/O.
+     */
+    default void onMemoryPressure(MemoryPressure level) {
+    }
+}
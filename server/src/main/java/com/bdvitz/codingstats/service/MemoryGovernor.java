@@ -0,0 +1,229 @@
+package com.bdvitz.codingstats.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the app through MemoryPressure levels from old-generation occupancy after GC, and tells every
+ * MemoryAware component when the level changes: ELEVATED shrinks caches and flushes buffers early,
+ * HIGH also halves outbound fetch concurrency, CRITICAL also rejects new refresh jobs and batch lookups.
+ *
+ * The JVM checks the pool's collection usage threshold after each GC and notifies us, so nothing runs on
+ * request threads and no GC is ever forced. After each notification the threshold moves up to the next
+ * level. A periodic check steps the level down again once occupancy is hysteresis below the current level.
+ *
+ * Components are looked up on each evaluation among the beans already instantiated, so the governor never
+ * forces a lazy bean into existence; one created while pressure is raised is told the level on the next check.
+ */
+@Component
+@Lazy(false)
+public class MemoryGovernor implements NotificationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryGovernor.class);
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    // Old-generation pools: the heap pools that support both usage and collection usage thresholds
+    private final List<MemoryPoolMXBean> pools;
+    // Occupancy at which each level starts, by ordinal (NORMAL is 0)
+    private final double[] thresholds;
+    private final double hysteresis;
+
+    private volatile MemoryPressure level = MemoryPressure.NORMAL;
+    // Level each component was last told, by bean name (guarded by evaluate)
+    private final Map<String, MemoryPressure> notified = new HashMap<>();
+
+    public MemoryGovernor(
+            ConfigurableListableBeanFactory beanFactory,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${chess.memory.elevated-fraction:0.60}") double elevatedFraction,
+            @Value("${chess.memory.high-fraction:0.75}") double highFraction,
+            @Value("${chess.memory.critical-fraction:0.85}") double criticalFraction,
+            @Value("${chess.memory.hysteresis:0.05}") double hysteresis) {
+        this.beanFactory = beanFactory;
+        this.thresholds = new double[] {0, elevatedFraction, highFraction, criticalFraction};
+        this.hysteresis = hysteresis;
+        this.pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .filter(pool -> pool.isUsageThresholdSupported() && pool.isCollectionUsageThresholdSupported())
+                .toList();
+        meterRegistry.ifAvailable(registry -> Gauge.builder("chess.memory.pressure", this, g -> g.getLevel().ordinal())
+                .description("Memory pressure level (0 normal, 1 elevated, 2 high, 3 critical)")
+                .register(registry));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (pools.isEmpty()) {
+            logger.warn("No heap pool supports collection usage thresholds, memory governor is inactive");
+            return;
+        }
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(this, null, null);
+        armThresholds();
+        logger.info("Memory governor watching {} (elevated {}%, high {}%, critical {}% after GC)",
+                pools.stream().map(MemoryPoolMXBean::getName).toList(),
+                percent(thresholds[1]), percent(thresholds[2]), percent(thresholds[3]));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pools.isEmpty()) {
+            return;
+        }
+        try {
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(this);
+        } catch (ListenerNotFoundException e) {
+            logger.debug("Memory governor listener was not registered");
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+            evaluate();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chess.memory.check-interval-ms:10000}")
+    public void check() {
+        if (!pools.isEmpty()) {
+            evaluate();
+        }
+    }
+
+    public MemoryPressure getLevel() {
+        return level;
+    }
+
+    /**
+     * Highest old-generation occupancy after the last GC, as a fraction of the pool's maximum
+     */
+    public double getOccupancy() {
+        double occupancy = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (afterGc != null) {
+                occupancy = Math.max(occupancy, (double) afterGc.getUsed() / maxBytes(pool));
+            }
+        }
+        return occupancy;
+    }
+
+    /**
+     * Estimated retained bytes by component bean name, largest first
+     */
+    public Map<String, Long> getComponentBytes() {
+        Map<String, Long> bytes = new LinkedHashMap<>();
+        components().entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().estimateRetainedBytes()))
+                .filter(entry -> entry.getValue() >= 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> bytes.put(entry.getKey(), entry.getValue()));
+        return bytes;
+    }
+
+    private synchronized void evaluate() {
+        double occupancy = getOccupancy();
+        MemoryPressure current = level;
+        MemoryPressure target = levelFor(occupancy);
+        if (target.compareTo(current) < 0) {
+            // Step down only once clearly below, so the level doesn't flap around a threshold
+            MemoryPressure withMargin = levelFor(occupancy + hysteresis);
+            target = withMargin.compareTo(current) < 0 ? withMargin : current;
+        }
+
+        if (target != current) {
+            level = target;
+            String message = "Memory pressure {} -> {} (old generation {}% after GC), largest holders: {}";
+            if (target.compareTo(current) > 0) {
+                logger.warn(message, current, target, percent(occupancy), getComponentBytes());
+            } else {
+                logger.info(message, current, target, percent(occupancy), getComponentBytes());
+            }
+        }
+        notifyComponents(target);
+        armThresholds();
+    }
+
+    /**
+     * Tell each instantiated component the level if it hasn't been told it yet (components start at NORMAL)
+     */
+    private void notifyComponents(MemoryPressure target) {
+        for (Map.Entry<String, MemoryAware> component : components().entrySet()) {
+            if (notified.getOrDefault(component.getKey(), MemoryPressure.NORMAL) == target) {
+                continue;
+            }
+            try {
+                component.getValue().onMemoryPressure(target);
+                notified.put(component.getKey(), target);
+            } catch (RuntimeException e) {
+                logger.error("{} failed to handle memory pressure {}", component.getKey(), target, e);
+            }
+        }
+    }
+
+    /**
+     * MemoryAware beans that already exist, by bean name; lazy beans not yet created hold no memory
+     */
+    private Map<String, MemoryAware> components() {
+        Map<String, MemoryAware> components = new LinkedHashMap<>();
+        for (String name : beanFactory.getBeanNamesForType(MemoryAware.class, false, false)) {
+            if (beanFactory.containsSingleton(name)) {
+                components.put(name, beanFactory.getBean(name, MemoryAware.class));
+            }
+        }
+        return components;
+    }
+
+    private MemoryPressure levelFor(double occupancy) {
+        MemoryPressure[] levels = MemoryPressure.values();
+        for (int i = levels.length - 1; i > 0; i--) {
+            if (occupancy >= thresholds[i]) {
+                return levels[i];
+            }
+        }
+        return MemoryPressure.NORMAL;
+    }
+
+    /**
+     * Ask for a notification when occupancy after GC reaches the next level (or stays critical)
+     */
+    private void armThresholds() {
+        double next = thresholds[Math.min(level.ordinal() + 1, thresholds.length - 1)];
+        for (MemoryPoolMXBean pool : pools) {
+            pool.setCollectionUsageThreshold((long) (maxBytes(pool) * next));
+        }
+    }
+
+    private static long maxBytes(MemoryPoolMXBean pool) {
+        long max = pool.getUsage().getMax();
+        return max > 0 ? max : Runtime.getRuntime().maxMemory();
+    }
+
+    private static long percent(double fraction) {
+        return Math.round(fraction * 100);
+    }
+}
@@ -0,0 +1,18 @@
+package com.bdvitz.codingstats.service;
+
+/**
+ * Heap pressure levels set by MemoryGovernor, from old-generation occupancy after garbage collection
+ */
+public enum MemoryPressure {
+    NORMAL,
+    // Caches shrink and buffers flush early
+    ELEVATED,
+    // Outbound fetch concurrency is reduced
+    HIGH,
+    // New refresh jobs and batch lookups are rejected
+    CRITICAL;
+
+    public boolean isAtLeast(MemoryPressure other) {
+        return compareTo(other) >= 0;
+    }
+}
@@ -0,0 +1,165 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.event.RemoteDataChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of Chess.com lookups that returned nothing, so typo'd usernames and
+ * empty months don't cost an upstream call (and rate-limit budget) every time.
+ *
+ * Unknown users and empty months have separate TTLs. Empty months that are already
+ * over can't gain games, so they stay cached until evicted by the LRU bound.
+ * The map is only locked for in-memory bookkeeping, never around I/O.
+ * Under memory pressure the bound drops to a half (ELEVATED) or a tenth (HIGH and above).
+ */
+@Component
+public class NegativeResultCache implements MemoryAware {
+
+    public enum Kind { UNKNOWN_USER, EMPTY_MONTH }
+
+    private static final long NEVER_EXPIRES = Long.MAX_VALUE;
+    // Rough heap per entry: key string, boxed expiry and the linked map entry
+    private static final long ENTRY_BYTES = 160;
+
+    private final int maxEntries;
+    // maxEntries, or less under memory pressure
+    private volatile int entryLimit;
+    private final long unknownUserTtlMs;
+    private final long emptyMonthTtlMs;
+
+    // Key -> expiry time in epoch millis, in access order for LRU eviction
+    private final LinkedHashMap<String, Long> entries;
+
+    private final Map<Kind, AtomicLong> hits = new EnumMap<>(Kind.class);
+    private final Map<Kind, AtomicLong> misses = new EnumMap<>(Kind.class);
+
+    public NegativeResultCache(
+            @Value("${chess.negative-cache.max-entries:5000}") int maxEntries,
+            @Value("${chess.negative-cache.unknown-user-ttl-minutes:60}") long unknownUserTtlMinutes,
+            @Value("${chess.negative-cache.empty-month-ttl-minutes:60}") long emptyMonthTtlMinutes) {
+        this.maxEntries = maxEntries;
+        this.entryLimit = maxEntries;
+        this.unknownUserTtlMs = unknownUserTtlMinutes * 60_000L;
+        this.emptyMonthTtlMs = emptyMonthTtlMinutes * 60_000L;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > entryLimit;
+            }
+        };
+        for (Kind kind : Kind.values()) {
+            hits.put(kind, new AtomicLong());
+            misses.put(kind, new AtomicLong());
+        }
+    }
+
+    public boolean isUnknownUser(String username) {
+        return lookup(Kind.UNKNOWN_USER, userKey(username));
+    }
+
+    public void recordUnknownUser(String username) {
+        put(userKey(username), System.currentTimeMillis() + unknownUserTtlMs);
+    }
+
+    public boolean isEmptyMonth(String username, int year, int month) {
+        return lookup(Kind.EMPTY_MONTH, monthKey(username, year, month));
+    }
+
+    /**
+     * Record a month with no games; past months are cached until evicted
+     */
+    public void recordEmptyMonth(String username, int year, int month) {
+        boolean closed = YearMonth.of(year, month).isBefore(YearMonth.now(ZoneOffset.UTC));
+        put(monthKey(username, year, month), closed ? NEVER_EXPIRES : System.currentTimeMillis() + emptyMonthTtlMs);
+    }
+
+    /**
+     * Forget everything cached for a user, e.g. after another instance stored data for them
+     */
+    public void invalidateUser(String username) {
+        String name = username.toLowerCase();
+        synchronized (entries) {
+            entries.remove(userKey(name));
+            entries.keySet().removeIf(key -> key.startsWith("m:" + name + ":"));
+        }
+    }
+
+    @EventListener
+    public void onRemoteDataChanged(RemoteDataChangedEvent event) {
+        invalidateUser(event.getUsername());
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return size() * ENTRY_BYTES;
+    }
+
+    @Override
+    public void onMemoryPressure(MemoryPressure level) {
+        entryLimit = switch (level) {
+            case NORMAL -> maxEntries;
+            case ELEVATED -> Math.max(1, maxEntries / 2);
+            default -> Math.max(1, maxEntries / 10);
+        };
+        synchronized (entries) {
+            // Least recently used first
+            Iterator<String> keys = entries.keySet().iterator();
+            while (entries.size() > entryLimit && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+
+    public long getHits(Kind kind) {
+        return hits.get(kind).get();
+    }
+
+    public long getMisses(Kind kind) {
+        return misses.get(kind).get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private boolean lookup(Kind kind, String key) {
+        boolean hit;
+        synchronized (entries) {
+            Long expiresAt = entries.get(key);
+            hit = expiresAt != null && expiresAt > System.currentTimeMillis();
+            if (expiresAt != null && !hit) {
+                entries.remove(key);
+            }
+        }
+        (hit ? hits : misses).get(kind).incrementAndGet();
+        return hit;
+    }
+
+    private void put(String key, long expiresAt) {
+        synchronized (entries) {
+            entries.put(key, expiresAt);
+        }
+    }
+
+    // Chess.com usernames are case-insensitive
+    private static String userKey(String username) {
+        return "u:" + username.toLowerCase();
+    }
+
+    private static String monthKey(String username, int year, int month) {
+        return String.format("m:%s:%04d-%02d", username.toLowerCase(), year, month);
+    }
+}
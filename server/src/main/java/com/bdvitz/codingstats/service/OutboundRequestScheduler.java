@@ -0,0 +1,285 @@
+package com.bdvitz.codingstats.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out the outbound Chess.com request slots (chess.api.max-concurrent-requests) to
+ * callers queued in priority lanes instead of first come first served.
+ *
+ * When a slot frees up it goes to the waiting lane with the lowest virtual pass (stride
+ * scheduling): each grant advances a lane's pass by 1/weight, so under contention lanes are
+ * served in proportion to their weights. A lane with callers waiting that has not been served
+ * for starvation-ms goes next regardless of weight, so low-weight lanes always make progress.
+ * A lane never holds more than its max-in-flight slots, and the refresh and background lanes
+ * together never hold more than all slots but one, so an interactive call never waits for bulk work
+ * to finish (with a single slot, bulk lanes may still take it).
+ *
+ * At HIGH memory pressure half the slots are withheld and bulk lanes get one slot each, since
+ * responses being parsed (whole game archives) are the largest short-lived allocations.
+ */
+@Component
+public class OutboundRequestScheduler implements MemoryAware {
+
+    // Wait samples kept per lane for the p99
+    private static final int RECENT_WAITS = 256;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int configuredPermits;
+    private final long starvationNanos;
+    private final Map<RequestLane, Lane> lanes = new EnumMap<>(RequestLane.class);
+
+    // configuredPermits, or fewer under memory pressure
+    private int permits;
+    private int inUse;
+    // Slots held by the refresh and background lanes together
+    private int bulkInFlight;
+    // Pass of the most recently served lane; a lane that was idle starts from here so it can't bank credit
+    private double virtualTime;
+
+    public OutboundRequestScheduler(
+            @Value("${chess.api.max-concurrent-requests:4}") int permits,
+            @Value("${chess.api.lanes.starvation-ms:2000}") long starvationMs,
+            @Value("${chess.api.permit-timeout-ms:5000}") long interactiveTimeoutMs,
+            @Value("${chess.api.lanes.interactive.weight:8}") int interactiveWeight,
+            @Value("${chess.api.lanes.refresh.weight:3}") int refreshWeight,
+            @Value("${chess.api.lanes.refresh.max-in-flight:3}") int refreshMaxInFlight,
+            @Value("${chess.api.lanes.refresh.permit-timeout-ms:30000}") long refreshTimeoutMs,
+            @Value("${chess.api.lanes.background.weight:1}") int backgroundWeight,
+            @Value("${chess.api.lanes.background.max-in-flight:2}") int backgroundMaxInFlight,
+            @Value("${chess.api.lanes.background.permit-timeout-ms:120000}") long backgroundTimeoutMs) {
+        this.configuredPermits = permits;
+        this.permits = permits;
+        this.starvationNanos = TimeUnit.MILLISECONDS.toNanos(starvationMs);
+        lanes.put(RequestLane.INTERACTIVE, new Lane(interactiveWeight, permits, interactiveTimeoutMs, false));
+        lanes.put(RequestLane.REFRESH, new Lane(refreshWeight, refreshMaxInFlight, refreshTimeoutMs, true));
+        lanes.put(RequestLane.BACKGROUND, new Lane(backgroundWeight, backgroundMaxInFlight, backgroundTimeoutMs, true));
+    }
+
+    /**
+     * Wait for a slot in the given lane, up to the lane's permit timeout.
+     * Every successful acquire must be paired with release(lane).
+     * @return false if no slot was granted in time
+     */
+    public boolean acquire(RequestLane requestLane) throws InterruptedException {
+        Lane lane = lanes.get(requestLane);
+        lock.lock();
+        try {
+            Waiter waiter = new Waiter(lock.newCondition());
+            if (lane.queue.isEmpty()) {
+                lane.pass = Math.max(lane.pass, virtualTime);
+            }
+            lane.queue.addLast(waiter);
+            dispatch();
+
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(lane.timeoutMs);
+            try {
+                while (!waiter.granted) {
+                    if (remainingNanos <= 0) {
+                        lane.queue.remove(waiter);
+                        lane.timedOut++;
+                        return false;
+                    }
+                    remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    releaseSlot(lane);
+                } else {
+                    lane.queue.remove(waiter);
+                }
+                throw e;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(RequestLane requestLane) {
+        lock.lock();
+        try {
+            releaseSlot(lanes.get(requestLane));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue depth, slots in use and wait times per lane, for health reporting
+     */
+    public Map<String, Object> getLaneStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            for (Map.Entry<RequestLane, Lane> entry : lanes.entrySet()) {
+                Lane lane = entry.getValue();
+                Map<String, Object> details = new LinkedHashMap<>();
+                details.put("weight", lane.weight);
+                details.put("maxInFlight", lane.maxInFlight);
+                details.put("queued", lane.queue.size());
+                details.put("inFlight", lane.inFlight);
+                details.put("granted", lane.granted);
+                details.put("timedOut", lane.timedOut);
+                details.put("avgWaitMs", lane.granted == 0 ? 0 : toMillis(lane.totalWaitNanos / lane.granted));
+                details.put("p99WaitMs", toMillis(lane.recentP99Nanos()));
+                details.put("maxWaitMs", toMillis(lane.maxWaitNanos));
+                stats.put(entry.getKey().name().toLowerCase(), details);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return stats;
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        // Waiters and wait samples only; response bodies belong to the calling threads
+        return -1;
+    }
+
+    @Override
+    public void onMemoryPressure(MemoryPressure level) {
+        boolean reduce = level.isAtLeast(MemoryPressure.HIGH);
+        lock.lock();
+        try {
+            // Slots already in use finish normally; new grants wait until usage is under the new limit
+            permits = reduce ? Math.max(1, configuredPermits / 2) : configuredPermits;
+            for (Map.Entry<RequestLane, Lane> entry : lanes.entrySet()) {
+                Lane lane = entry.getValue();
+                lane.maxInFlight = reduce && entry.getKey() != RequestLane.INTERACTIVE ? 1 : lane.configuredMaxInFlight;
+            }
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseSlot(Lane lane) {
+        inUse--;
+        lane.inFlight--;
+        if (lane.bulk) {
+            bulkInFlight--;
+        }
+        dispatch();
+    }
+
+    /**
+     * Grant free slots to waiting callers; called with the lock held
+     */
+    private void dispatch() {
+        while (inUse < permits) {
+            long now = System.nanoTime();
+            Lane next = pickLane(now);
+            if (next == null) {
+                return;
+            }
+
+            Waiter waiter = next.queue.pollFirst();
+            inUse++;
+            next.inFlight++;
+            if (next.bulk) {
+                bulkInFlight++;
+            }
+            next.lastGrantAt = now;
+            next.recordWait(now - waiter.enqueuedAt);
+            waiter.granted = true;
+            waiter.condition.signal();
+        }
+    }
+
+    private Lane pickLane(long now) {
+        Lane starved = null;
+        long starvedSince = 0;
+        Lane lowestPass = null;
+        // One slot stays reserved for interactive calls
+        boolean bulkFull = bulkInFlight >= Math.max(1, permits - 1);
+        for (Lane lane : lanes.values()) {
+            if (lane.queue.isEmpty() || lane.inFlight >= lane.maxInFlight || (lane.bulk && bulkFull)) {
+                continue;
+            }
+            long since = Math.max(lane.queue.peekFirst().enqueuedAt, lane.lastGrantAt);
+            if (now - since >= starvationNanos && (starved == null || since < starvedSince)) {
+                starved = lane;
+                starvedSince = since;
+            }
+            if (lowestPass == null || lane.pass < lowestPass.pass) {
+                lowestPass = lane;
+            }
+        }
+
+        Lane chosen = starved != null ? starved : lowestPass;
+        if (chosen != null) {
+            virtualTime = chosen.pass;
+            chosen.pass += 1.0 / chosen.weight;
+        }
+        return chosen;
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static final class Waiter {
+        final Condition condition;
+        final long enqueuedAt = System.nanoTime();
+        boolean granted;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    private static final class Lane {
+        final int weight;
+        final int configuredMaxInFlight;
+        final long timeoutMs;
+        // Refresh and background lanes share the bulk slot limit
+        final boolean bulk;
+        final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        final long[] recentWaits = new long[RECENT_WAITS];
+
+        int maxInFlight;
+        double pass;
+        long lastGrantAt = System.nanoTime();
+        int inFlight;
+        long granted;
+        long timedOut;
+        long totalWaitNanos;
+        long maxWaitNanos;
+
+        Lane(int weight, int maxInFlight, long timeoutMs, boolean bulk) {
+            this.weight = Math.max(1, weight);
+            this.configuredMaxInFlight = Math.max(1, maxInFlight);
+            this.maxInFlight = this.configuredMaxInFlight;
+            this.timeoutMs = timeoutMs;
+            this.bulk = bulk;
+        }
+
+        void recordWait(long nanos) {
+            recentWaits[(int) (granted % RECENT_WAITS)] = nanos;
+            granted++;
+            totalWaitNanos += nanos;
+            maxWaitNanos = Math.max(maxWaitNanos, nanos);
+        }
+
+        long recentP99Nanos() {
+            int count = (int) Math.min(granted, RECENT_WAITS);
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(recentWaits, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(count * 0.99) - 1];
+        }
+    }
+}
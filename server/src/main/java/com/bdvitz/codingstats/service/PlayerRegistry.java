@@ -0,0 +1,123 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.model.Player;
+import com.bdvitz.codingstats.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory cache in front of the players table, mapping canonical usernames to player ids and back.
+ *
+ * Players are never renamed or deleted, so cached entries never go stale. Only stored players are
+ * cached; lookups for guests (no player row) go to the database each time, like existsByUsername did.
+ */
+@Service
+public class PlayerRegistry implements MemoryAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlayerRegistry.class);
+    // Rough heap per player across both maps
+    private static final long PLAYER_BYTES = 200;
+
+    private final PlayerRepository playerRepository;
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    // Not synchronized: the load is a database query, which would pin a virtual thread's carrier while it waits
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    public PlayerRegistry(PlayerRepository playerRepository) {
+        this.playerRepository = playerRepository;
+    }
+
+    /**
+     * Player id for a username (any case), if the player is stored
+     */
+    public Optional<Integer> findId(String username) {
+        String name = Player.canonicalName(username);
+        Integer id = idsByName.get(name);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        return playerRepository.findByUsername(name).map(this::remember);
+    }
+
+    /**
+     * Player ids for the stored players among usernames, keyed by canonical name
+     */
+    public Map<String, Integer> findIds(Collection<String> usernames) {
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        for (String username : usernames) {
+            findId(username).ifPresent(id -> ids.put(Player.canonicalName(username), id));
+        }
+        return ids;
+    }
+
+    /**
+     * Player id for a username, registering the player on first write.
+     * Call outside the rating write transaction, so a rolled-back write never leaves a cached id without a row.
+     */
+    public int getOrCreateId(String username) {
+        Optional<Integer> existing = findId(username);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        String name = Player.canonicalName(username);
+        if (playerRepository.insertIfAbsent(name) > 0) {
+            logger.info("Registered player {}", name);
+        }
+        return findId(name).orElseThrow(() -> new IllegalStateException("Player was not registered: " + name));
+    }
+
+    /**
+     * Canonical username for a player id
+     * @throws IllegalStateException if no such player exists
+     */
+    public String getUsername(int playerId) {
+        if (!loaded) {
+            loadAll();
+        }
+        String name = namesById.get(playerId);
+        if (name != null) {
+            return name;
+        }
+        // Registered by another instance since the cache was loaded
+        return playerRepository.findById(playerId)
+                .map(player -> {
+                    remember(player);
+                    return player.getUsername();
+                })
+                .orElseThrow(() -> new IllegalStateException("Unknown player id " + playerId));
+    }
+
+    private void loadAll() {
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                playerRepository.findAll().forEach(this::remember);
+                loaded = true;
+                logger.info("Loaded {} players", namesById.size());
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private Integer remember(Player player) {
+        idsByName.put(player.getUsername(), player.getId());
+        namesById.put(player.getId(), player.getUsername());
+        return player.getId();
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return idsByName.size() * PLAYER_BYTES;
+    }
+}
@@ -0,0 +1,258 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.event.ChessStatUpdatedEvent;
+import com.bdvitz.codingstats.event.DailyRatingsUpdatedEvent;
+import com.bdvitz.codingstats.event.RemoteDataChangedEvent;
+import com.bdvitz.codingstats.repository.ChessDailyRatingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent event subscriptions for live rating updates.
+ *
+ * Subscribers are async servlet requests, so an idle subscriber holds a socket and a
+ * small SseEmitter but no request thread. Updates are pushed when the write-behind
+ * buffer commits new stats or daily ratings; a comment line is sent every
+ * heartbeat-interval-ms so proxies keep the connection open and dead clients are dropped.
+ *
+ * Events are queued per subscriber and written on streamExecutor, so publishers (the write-behind
+ * flush, the heartbeat) never block on a client's socket. A subscriber with send-queue-size events
+ * still unsent has fallen behind (stalled or too slow) and is dropped; EventSource reconnects.
+ * Writes made by other instances arrive as RemoteDataChangedEvent and are reloaded from the database.
+ */
+@Service
+public class RatingStreamService implements MemoryAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingStreamService.class);
+    // Rough heap per open stream: emitter, async context and response buffer
+    private static final long SUBSCRIBER_BYTES = 10 * 1024;
+
+    public static final String STATS_EVENT = "stats";
+    public static final String RATINGS_EVENT = "ratings";
+
+    private final long timeoutMs;
+    private final long reconnectDelayMs;
+    private final int maxSubscribers;
+    private final int sendQueueSize;
+    private final TaskExecutor streamExecutor;
+
+    // Lower-cased username -> open streams
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final ChessStatsService chessStatsService;
+    private final ChessDailyRatingRepository dailyRatingRepository;
+    private final PlayerRegistry playerRegistry;
+
+    /**
+     * One open stream: its emitter and the events not yet written to it
+     */
+    private final class Subscriber {
+        final String key;
+        final SseEmitter emitter;
+        final Queue<SseEmitter.SseEventBuilder> pending;
+        // Whether a drain task is queued or running, so events are written in order by one thread at a time
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(String key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(sendQueueSize);
+        }
+    }
+
+    public RatingStreamService(
+            ChessStatsService chessStatsService,
+            ChessDailyRatingRepository dailyRatingRepository,
+            PlayerRegistry playerRegistry,
+            @Value("${chess.stream.timeout-ms:1800000}") long timeoutMs,
+            @Value("${chess.stream.reconnect-delay-ms:5000}") long reconnectDelayMs,
+            @Value("${chess.stream.max-subscribers:50}") int maxSubscribers,
+            @Value("${chess.stream.send-queue-size:32}") int sendQueueSize,
+            @Qualifier("streamExecutor") TaskExecutor streamExecutor) {
+        this.chessStatsService = chessStatsService;
+        this.dailyRatingRepository = dailyRatingRepository;
+        this.playerRegistry = playerRegistry;
+        this.timeoutMs = timeoutMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+        this.maxSubscribers = maxSubscribers;
+        this.sendQueueSize = Math.max(1, sendQueueSize);
+        this.streamExecutor = streamExecutor;
+    }
+
+    /**
+     * Open a stream for a user
+     * @throws IllegalStateException if the instance is at chess.stream.max-subscribers
+     */
+    public SseEmitter subscribe(String username) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many stream subscribers");
+        }
+
+        String key = username.toLowerCase();
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(key, emitter);
+        subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        Runnable remove = () -> unsubscribe(subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        // Tell EventSource how long to wait before reconnecting after a timeout or restart
+        enqueue(subscriber, SseEmitter.event().comment("connected").reconnectTime(reconnectDelayMs));
+        logger.debug("Stream subscriber added for {} ({} open)", username, subscriberCount.get());
+        return emitter;
+    }
+
+    /**
+     * Send an event to one stream, e.g. the current state right after subscribing
+     */
+    public void sendTo(String username, SseEmitter emitter, String eventName, Object data) {
+        Set<Subscriber> open = subscribers.get(username.toLowerCase());
+        if (open == null) {
+            return;
+        }
+        for (Subscriber subscriber : open) {
+            if (subscriber.emitter == emitter) {
+                enqueue(subscriber, SseEmitter.event().name(eventName).data(data));
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return subscriberCount.get() * SUBSCRIBER_BYTES;
+    }
+
+    @EventListener
+    public void onChessStatUpdated(ChessStatUpdatedEvent event) {
+        publish(event.getUsername(), STATS_EVENT, event.getChessStat());
+    }
+
+    @EventListener
+    public void onDailyRatingsUpdated(DailyRatingsUpdatedEvent event) {
+        publish(event.getUsername(), RATINGS_EVENT, event.getRatings());
+    }
+
+    /**
+     * Another instance wrote data for a user: reload it from the database for this instance's subscribers
+     */
+    @EventListener
+    public void onRemoteDataChanged(RemoteDataChangedEvent event) {
+        String username = event.getUsername();
+        Set<Subscriber> open = subscribers.get(username.toLowerCase());
+        if (open == null || open.isEmpty()) {
+            return;
+        }
+
+        if (event.getType() == RemoteDataChangedEvent.Type.STATS) {
+            chessStatsService.getLastKnownStats(username)
+                    .ifPresent(chessStat -> publish(username, STATS_EVENT, chessStat));
+        } else if (event.getStartDate() != null && event.getEndDate() != null) {
+            playerRegistry.findId(username)
+                    .map(playerId -> dailyRatingRepository.findByPlayerIdAndDateBetween(
+                            playerId, event.getStartDate(), event.getEndDate()))
+                    .filter(ratings -> !ratings.isEmpty())
+                    .ifPresent(ratings -> publish(username, RATINGS_EVENT, ratings));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chess.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach((key, open) -> {
+            for (Subscriber subscriber : open) {
+                enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+            }
+        });
+    }
+
+    private void publish(String username, String eventName, Object data) {
+        Set<Subscriber> open = subscribers.get(username.toLowerCase());
+        if (open == null || open.isEmpty()) {
+            return;
+        }
+        logger.debug("Pushing {} event for {} to {} subscribers", eventName, username, open.size());
+        for (Subscriber subscriber : open) {
+            enqueue(subscriber, SseEmitter.event().name(eventName).data(data));
+        }
+    }
+
+    /**
+     * Queue an event for a subscriber and make sure a drain task will write it; never blocks
+     */
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.pending.offer(event)) {
+            logger.info("Dropping stream subscriber for {}: {} events unsent", subscriber.key, sendQueueSize);
+            drop(subscriber, new IOException("Subscriber fell behind"));
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            streamExecutor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+            drop(subscriber, new IOException("Stream executor rejected the send", e));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        SseEmitter.SseEventBuilder event;
+        while ((event = subscriber.pending.poll()) != null) {
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Client went away (or the emitter already completed)
+                drop(subscriber, e);
+                return;
+            }
+        }
+        subscriber.draining.set(false);
+        // An event queued after the last poll but before the flag was cleared still needs a drain
+        if (!subscriber.pending.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void drop(Subscriber subscriber, Exception cause) {
+        unsubscribe(subscriber);
+        subscriber.pending.clear();
+        subscriber.emitter.completeWithError(cause);
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        Set<Subscriber> open = subscribers.get(subscriber.key);
+        if (open != null && open.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(subscriber.key, (k, set) -> set.isEmpty() ? null : set);
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.event.ChessStatUpdatedEvent;
+import com.bdvitz.codingstats.event.DailyRatingsUpdatedEvent;
+import com.bdvitz.codingstats.model.ChessDailyRating;
+import com.bdvitz.codingstats.model.ChessStat;
+import com.bdvitz.codingstats.model.Player;
+import com.bdvitz.codingstats.repository.ChessDailyRatingRepository;
+import com.bdvitz.codingstats.repository.ChessStatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind stage for ChessDailyRating and ChessStat updates.
+ *
+ * Updates to the same (player, date) are coalesced in memory (non-null ratings win,
+ * like the old find-then-update loop) and flushed in one transaction per batch when
+ * chess.write-behind.batch-size entries are pending or every flush-interval-ms.
+ * The buffer stops after the web server has drained during graceful shutdown
+ * and flushes what is left before the connection pool closes.
+ *
+ * Under memory pressure every enqueue flushes, so pending entries don't accumulate.
+ *
+ * Flushes from one buffer never overlap; a batch that collides with another writer's insert
+ * (another instance, a bulk import) is retried straight away as updates.
+ *
+ * Pending entries are visible to reads through overlayPending/getPendingStats.
+ * Each successful flush publishes ChessStatUpdatedEvent and DailyRatingsUpdatedEvent
+ * after the transaction has committed.
+ */
+@Component
+public class RatingWriteBuffer implements SmartLifecycle, MemoryAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingWriteBuffer.class);
+    // Rough heap per pending entry: key, entity copy and map node
+    private static final long ENTRY_BYTES = 320;
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private record RatingKey(String username, LocalDate date) {}
+
+    private final ChessDailyRatingRepository dailyRatingRepository;
+    private final ChessStatRepository chessStatRepository;
+    private final PlayerRegistry playerRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private final Map<RatingKey, ChessDailyRating> pendingRatings = new ConcurrentHashMap<>();
+    private final Map<String, ChessStat> pendingStats = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean running;
+    private volatile boolean flushEagerly;
+
+    public RatingWriteBuffer(
+            ChessDailyRatingRepository dailyRatingRepository,
+            ChessStatRepository chessStatRepository,
+            PlayerRegistry playerRegistry,
+            ObjectProvider<PlatformTransactionManager> transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${chess.write-behind.enabled:true}") boolean enabled,
+            @Value("${chess.write-behind.batch-size:200}") int batchSize) {
+        this.dailyRatingRepository = dailyRatingRepository;
+        this.chessStatRepository = chessStatRepository;
+        this.playerRegistry = playerRegistry;
+        // The embedded storage profile has no transaction manager; its writes are file appends
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        this.transactionTemplate = manager != null ? new TransactionTemplate(manager) : null;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Queue daily ratings; ratings for a (username, date) already pending are merged.
+     * Pending ratings carry the canonical username.
+     */
+    public void enqueueRatings(Collection<ChessDailyRating> ratings) {
+        for (ChessDailyRating rating : ratings) {
+            ChessDailyRating copy = copyOf(rating);
+            copy.setUsername(Player.canonicalName(rating.getUsername()));
+            pendingRatings.merge(new RatingKey(copy.getUsername(), copy.getDate()), copy, RatingWriteBuffer::mergeInto);
+        }
+        afterEnqueue();
+    }
+
+    /**
+     * Queue current stats; a newer fetch for the same user replaces the pending one
+     */
+    public void enqueueStats(ChessStat chessStat) {
+        pendingStats.put(chessStat.getUsername(), chessStat);
+        afterEnqueue();
+    }
+
+    public Optional<ChessStat> getPendingStats(String username) {
+        return Optional.ofNullable(pendingStats.get(username));
+    }
+
+    public boolean hasPendingRatings(String username) {
+        String name = Player.canonicalName(username);
+        return pendingRatings.keySet().stream().anyMatch(key -> key.username().equals(name));
+    }
+
+    /**
+     * Merge pending ratings for a user and date range over rows read from the repository
+     * @return ratings sorted by date
+     */
+    public List<ChessDailyRating> overlayPending(String username, LocalDate start, LocalDate end,
+                                                 List<ChessDailyRating> stored) {
+        if (pendingRatings.isEmpty()) {
+            return stored;
+        }
+
+        String name = Player.canonicalName(username);
+        TreeMap<LocalDate, ChessDailyRating> byDate = null;
+        for (ChessDailyRating pending : pendingRatings.values()) {
+            if (!pending.getUsername().equals(name)
+                    || pending.getDate().isBefore(start) || pending.getDate().isAfter(end)) {
+                continue;
+            }
+            if (byDate == null) {
+                byDate = new TreeMap<>();
+                for (ChessDailyRating rating : stored) {
+                    byDate.put(rating.getDate(), rating);
+                }
+            }
+            ChessDailyRating existing = byDate.get(pending.getDate());
+            byDate.put(pending.getDate(), existing != null ? mergeInto(copyOf(existing), pending) : copyOf(pending));
+        }
+        return byDate != null ? new ArrayList<>(byDate.values()) : stored;
+    }
+
+    public int getPendingCount() {
+        return pendingRatings.size() + pendingStats.size();
+    }
+
+    private void afterEnqueue() {
+        if (!enabled || !running || flushEagerly || getPendingCount() >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return getPendingCount() * ENTRY_BYTES;
+    }
+
+    @Override
+    public void onMemoryPressure(MemoryPressure level) {
+        // What is already pending goes out with the next scheduled flush
+        flushEagerly = level.isAtLeast(MemoryPressure.ELEVATED);
+    }
+
+    @Scheduled(fixedDelayString = "${chess.write-behind.flush-interval-ms:2000}")
+    public void scheduledFlush() {
+        if (getPendingCount() > 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Write all pending entries. Concurrent callers wait for the in-progress flush
+     * and then flush whatever arrived meanwhile. Update events are published after
+     * the lock is released, so a slow listener doesn't hold up the next flush.
+     */
+    public void flush() {
+        List<ChessDailyRating> saved;
+        Map<String, ChessStat> stats;
+        flushLock.lock();
+        try {
+            Map<RatingKey, ChessDailyRating> ratings = drain(pendingRatings);
+            stats = drain(pendingStats);
+            if (ratings.isEmpty() && stats.isEmpty()) {
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            try {
+                // New players are registered before, not inside, the write transaction
+                Map<String, Integer> playerIds = new HashMap<>();
+                for (RatingKey key : ratings.keySet()) {
+                    playerIds.computeIfAbsent(key.username(), playerRegistry::getOrCreateId);
+                }
+                saved = writeWithRetry(ratings, playerIds, stats);
+                logger.info("Flushed {} daily ratings and {} stats in {} ms",
+                        ratings.size(), stats.size(), System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.error("Write-behind flush failed, re-queueing {} ratings and {} stats",
+                        ratings.size(), stats.size(), e);
+                // Entries queued after the drain are newer and take precedence
+                ratings.forEach((key, rating) -> pendingRatings.merge(key, rating, (newer, older) -> mergeInto(older, newer)));
+                stats.forEach(pendingStats::putIfAbsent);
+                return;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        publishUpdates(saved, stats.values());
+    }
+
+    private void publishUpdates(List<ChessDailyRating> saved, Collection<ChessStat> stats) {
+        Map<String, List<ChessDailyRating>> byUser = new LinkedHashMap<>();
+        for (ChessDailyRating rating : saved) {
+            byUser.computeIfAbsent(rating.getUsername(), username -> new ArrayList<>()).add(rating);
+        }
+        try {
+            byUser.forEach((username, ratings) -> {
+                ratings.sort(Comparator.comparing(ChessDailyRating::getDate));
+                eventPublisher.publishEvent(new DailyRatingsUpdatedEvent(username, ratings));
+            });
+            stats.forEach(chessStat -> eventPublisher.publishEvent(new ChessStatUpdatedEvent(chessStat)));
+        } catch (Exception e) {
+            // Listeners must not turn a committed write into a re-queue
+            logger.warn("Error publishing write-behind update events", e);
+        }
+    }
+
+    /**
+     * Another writer (another instance's flush, a bulk import) can insert the same (player, date) or user between
+     * this flush's lookup and insert, failing the batch on the unique constraint. The competing row is committed
+     * by the time the error is raised, so the batch is looked up and written again, this time as updates.
+     * Past MAX_WRITE_ATTEMPTS the failure goes to flush(), which re-queues the batch.
+     */
+    private List<ChessDailyRating> writeWithRetry(Map<RatingKey, ChessDailyRating> ratings,
+                                                  Map<String, Integer> playerIds, Map<String, ChessStat> stats) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate != null
+                        ? transactionTemplate.execute(status -> write(ratings, playerIds, stats))
+                        : write(ratings, playerIds, stats);
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.info("Flush collided with a concurrent writer (attempt {}/{}), retrying: {}",
+                        attempt, MAX_WRITE_ATTEMPTS, e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private List<ChessDailyRating> write(Map<RatingKey, ChessDailyRating> ratings, Map<String, Integer> playerIds,
+                                         Map<String, ChessStat> stats) {
+        // One lookup per user for all pending dates, then a single saveAll
+        Map<String, List<ChessDailyRating>> byUser = new LinkedHashMap<>();
+        for (ChessDailyRating rating : ratings.values()) {
+            byUser.computeIfAbsent(rating.getUsername(), username -> new ArrayList<>()).add(rating);
+        }
+
+        List<ChessDailyRating> toSave = new ArrayList<>();
+        for (Map.Entry<String, List<ChessDailyRating>> entry : byUser.entrySet()) {
+            Integer playerId = playerIds.get(entry.getKey());
+            List<LocalDate> dates = entry.getValue().stream().map(ChessDailyRating::getDate).toList();
+            Map<LocalDate, ChessDailyRating> existing = new HashMap<>();
+            for (ChessDailyRating row : dailyRatingRepository.findByPlayerIdAndDateIn(playerId, dates)) {
+                existing.put(row.getDate(), row);
+            }
+            for (ChessDailyRating rating : entry.getValue()) {
+                ChessDailyRating row = existing.get(rating.getDate());
+                if (row == null) {
+                    // Insert a copy: the pending entity must stay id-less for a retry or re-queue
+                    row = copyOf(rating);
+                    row.setPlayerId(playerId);
+                    toSave.add(row);
+                } else if (changes(row, rating)) {
+                    toSave.add(mergeInto(row, rating));
+                }
+                // Unchanged days (most of a re-fetched month) are neither written nor published
+            }
+        }
+        List<ChessDailyRating> saved = dailyRatingRepository.saveAll(toSave);
+
+        if (!stats.isEmpty()) {
+            // Preserve existing IDs to update rows in place instead of inserting duplicates
+            Map<String, ChessStat> existingStats = new HashMap<>();
+            for (ChessStat row : chessStatRepository.findByUsernameIn(stats.keySet())) {
+                existingStats.put(row.getUsername(), row);
+            }
+            for (ChessStat chessStat : stats.values()) {
+                ChessStat row = existingStats.get(chessStat.getUsername());
+                // Reset on a miss too: an insert from a rolled-back attempt leaves its id behind
+                chessStat.setId(row != null ? row.getId() : null);
+            }
+            chessStatRepository.saveAll(stats.values());
+        }
+        return saved;
+    }
+
+    private static <K, V> Map<K, V> drain(Map<K, V> pending) {
+        Map<K, V> drained = new LinkedHashMap<>();
+        for (K key : pending.keySet()) {
+            V value = pending.remove(key);
+            if (value != null) {
+                drained.put(key, value);
+            }
+        }
+        return drained;
+    }
+
+    private static ChessDailyRating copyOf(ChessDailyRating rating) {
+        ChessDailyRating copy = new ChessDailyRating(rating.getUsername(), rating.getDate());
+        copy.setId(rating.getId());
+        copy.setPlayerId(rating.getPlayerId());
+        copy.setRapidRating(rating.getRapidRating());
+        copy.setBlitzRating(rating.getBlitzRating());
+        copy.setBulletRating(rating.getBulletRating());
+        return copy;
+    }
+
+    private static boolean changes(ChessDailyRating row, ChessDailyRating update) {
+        return (update.getRapidRating() != null && !update.getRapidRating().equals(row.getRapidRating()))
+                || (update.getBlitzRating() != null && !update.getBlitzRating().equals(row.getBlitzRating()))
+                || (update.getBulletRating() != null && !update.getBulletRating().equals(row.getBulletRating()));
+    }
+
+    private static ChessDailyRating mergeInto(ChessDailyRating target, ChessDailyRating update) {
+        if (update.getRapidRating() != null) target.setRapidRating(update.getRapidRating());
+        if (update.getBlitzRating() != null) target.setBlitzRating(update.getBlitzRating());
+        if (update.getBulletRating() != null) target.setBulletRating(update.getBulletRating());
+        return target;
+    }
+
+    // Lifecycle: stop after the web server's graceful shutdown phase, before the pool is closed
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        logger.info("Flushing {} pending writes before shutdown", getPendingCount());
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
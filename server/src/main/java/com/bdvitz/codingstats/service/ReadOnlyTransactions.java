@@ -0,0 +1,60 @@
+package com.bdvitz.codingstats.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs database reads in a read-only transaction that ReadWriteRoutingDataSource sends to the
+ * read pool (a replica, when configured). Only code inside execute() is routed there; every other
+ * transaction, including read-only repository calls on write paths, stays on the primary so it
+ * sees its own writes.
+ *
+ * Keep Chess.com calls outside execute(): the read connection is held until it returns.
+ * If a transaction is already active the read joins it, on that transaction's connection.
+ */
+@Component
+public class ReadOnlyTransactions {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ReadOnlyTransactions(ObjectProvider<PlatformTransactionManager> transactionManager) {
+        // The embedded storage profile has no transaction manager
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        if (manager != null) {
+            this.transactionTemplate = new TransactionTemplate(manager);
+            this.transactionTemplate.setReadOnly(true);
+        } else {
+            this.transactionTemplate = null;
+        }
+    }
+
+    /**
+     * Whether the current thread is inside execute()
+     */
+    public static boolean isActive() {
+        return Boolean.TRUE.equals(ACTIVE.get());
+    }
+
+    public <T> T execute(Supplier<T> query) {
+        if (transactionTemplate == null) {
+            return query.get();
+        }
+        Boolean previous = ACTIVE.get();
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return transactionTemplate.execute(status -> query.get());
+        } finally {
+            if (previous == null) {
+                ACTIVE.remove();
+            } else {
+                ACTIVE.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.model.Player;
+import com.bdvitz.codingstats.model.RefreshJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs refreshes from Chess.com as background jobs on the bounded jobExecutor, so request
+ * threads return immediately and stay free for reads.
+ *
+ * A refresh that is already queued or running for the same user (and month) is not submitted
+ * again; the caller gets the existing job. Finished jobs stay queryable for chess.jobs.retention-minutes,
+ * or one minute under memory pressure. At CRITICAL pressure new jobs are rejected.
+ */
+@Service
+public class RefreshJobService implements MemoryAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshJobService.class);
+    // Rough heap per tracked job, including a result of current stats or one month of ratings
+    private static final long JOB_BYTES = 8 * 1024;
+    private static final Duration PRESSURE_RETENTION = Duration.ofMinutes(1);
+
+    private final ChessStatsService chessStatsService;
+    private final ChessHistoryService chessHistoryService;
+    private final TaskExecutor jobExecutor;
+    private final Duration retention;
+    private volatile MemoryPressure memoryPressure = MemoryPressure.NORMAL;
+
+    private final Map<String, RefreshJob> jobs = new ConcurrentHashMap<>();
+    // Dedup key -> job that is queued or running for it
+    private final Map<String, RefreshJob> activeJobs = new ConcurrentHashMap<>();
+
+    public RefreshJobService(
+            ChessStatsService chessStatsService,
+            ChessHistoryService chessHistoryService,
+            @Qualifier("jobExecutor") TaskExecutor jobExecutor,
+            @Value("${chess.jobs.retention-minutes:15}") long retentionMinutes) {
+        this.chessStatsService = chessStatsService;
+        this.chessHistoryService = chessHistoryService;
+        this.jobExecutor = jobExecutor;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+    }
+
+    /**
+     * Submit a refresh of current stats
+     * @throws RejectedExecutionException if the job queue is full or memory pressure is critical
+     */
+    public RefreshJob submitStatsRefresh(String username) {
+        RefreshJob job = new RefreshJob(RefreshJob.TYPE_STATS, username, null, null);
+        return submit("stats:" + Player.canonicalName(username), job,
+                () -> chessStatsService.fetchAndUpdateCurrentStats(username));
+    }
+
+    /**
+     * Submit a refresh of one month of rating history
+     * @throws RejectedExecutionException if the job queue is full or memory pressure is critical
+     */
+    public RefreshJob submitHistoryRefresh(String username, int year, int month) {
+        RefreshJob job = new RefreshJob(RefreshJob.TYPE_HISTORY, username, year, month);
+        return submit("history:" + Player.canonicalName(username) + ":" + year + "-" + month, job,
+                () -> chessHistoryService.fetchAndUpdateMonthHistory(username, year, month));
+    }
+
+    public Optional<RefreshJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public int getActiveCount() {
+        return activeJobs.size();
+    }
+
+    private RefreshJob submit(String key, RefreshJob job, Supplier<Object> work) {
+        RefreshJob active = activeJobs.putIfAbsent(key, job);
+        if (active != null) {
+            logger.info("Refresh {} already {}, returning job {}", key, active.getStatus(), active.getId());
+            return active;
+        }
+        if (memoryPressure.isAtLeast(MemoryPressure.CRITICAL)) {
+            activeJobs.remove(key, job);
+            logger.warn("Memory pressure is critical, rejecting refresh {}", key);
+            throw new RejectedExecutionException("Server is low on memory, try again shortly");
+        }
+
+        jobs.put(job.getId(), job);
+        try {
+            jobExecutor.execute(() -> run(key, job, work));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            activeJobs.remove(key, job);
+            logger.warn("Job queue full, rejecting refresh {}", key);
+            throw new RejectedExecutionException("Too many refreshes queued, try again shortly", e);
+        }
+        logger.info("Queued refresh job {} for {}", job.getId(), key);
+        return job;
+    }
+
+    private void run(String key, RefreshJob job, Supplier<Object> work) {
+        job.setStartedAt(Instant.now());
+        job.setStatus(RefreshJob.Status.RUNNING);
+        // The terminal status is set last: a job that reads as finished always has its finishedAt and result or error
+        try {
+            Object result = work.get();
+            job.setResult(result);
+            job.setFinishedAt(Instant.now());
+            job.setStatus(RefreshJob.Status.SUCCEEDED);
+        } catch (Exception e) {
+            logger.warn("Refresh job {} for {} failed: {}", job.getId(), key, e.getMessage());
+            job.setError(e.getMessage());
+            job.setFinishedAt(Instant.now());
+            job.setStatus(RefreshJob.Status.FAILED);
+        } finally {
+            activeJobs.remove(key, job);
+        }
+    }
+
+    /**
+     * Drop finished jobs older than the retention period
+     */
+    @Scheduled(fixedDelayString = "${chess.jobs.cleanup-interval-ms:60000}")
+    public void evictFinishedJobs() {
+        Duration keep = memoryPressure.isAtLeast(MemoryPressure.ELEVATED) && PRESSURE_RETENTION.compareTo(retention) < 0
+                ? PRESSURE_RETENTION
+                : retention;
+        Instant cutoff = Instant.now().minus(keep);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return jobs.size() * JOB_BYTES;
+    }
+
+    @Override
+    public void onMemoryPressure(MemoryPressure level) {
+        memoryPressure = level;
+        if (level.isAtLeast(MemoryPressure.ELEVATED)) {
+            evictFinishedJobs();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bdvitz.codingstats.service;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Priority class of an outbound Chess.com call, used by OutboundRequestScheduler.
+ *
+ * The lane is carried by the calling thread: request threads are INTERACTIVE unless told
+ * otherwise, executors set it through a TaskDecorator and scheduled work wraps itself in run().
+ */
+public enum RequestLane {
+    /** Request threads waiting on the answer (guest lookups, verification, batch fan-out) */
+    INTERACTIVE,
+    /** Refresh jobs and stale-while-revalidate refreshes */
+    REFRESH,
+    /** Nightly scheduler, startup warmup and other bulk work */
+    BACKGROUND;
+
+    private static final ThreadLocal<RequestLane> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Lane of the current thread (INTERACTIVE if none was set)
+     */
+    public static RequestLane current() {
+        RequestLane lane = CURRENT.get();
+        return lane != null ? lane : INTERACTIVE;
+    }
+
+    /**
+     * Run a task with its Chess.com calls in the given lane
+     */
+    public static void run(RequestLane lane, Runnable task) {
+        RequestLane previous = CURRENT.get();
+        CURRENT.set(lane);
+        try {
+            task.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Decorator running every task of an executor in the given lane
+     */
+    public static TaskDecorator decorator(RequestLane lane) {
+        return task -> () -> run(lane, task);
+    }
+
+    /**
+     * Decorator running each task in the lane of the thread that submitted it
+     */
+    public static TaskDecorator inheriting() {
+        return task -> {
+            RequestLane lane = current();
+            return () -> run(lane, task);
+        };
+    }
+}
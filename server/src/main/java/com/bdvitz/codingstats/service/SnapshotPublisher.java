@@ -0,0 +1,291 @@
+package com.bdvitz.codingstats.service;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the stored user's snapshot to chess.snapshot.publish.directory as static files, so a static host
+ * can serve the cached data with no server involved:
+ *
+ *   stored-user-snapshot.{version}.json (.gz, .br)   minified snapshot and pre-compressed copies, never rewritten
+ *   stored-user-snapshot.json (.gz, .br)             the same bytes under the name the frontend has always used
+ *   snapshot-manifest.json                           current version, file names and sizes
+ *
+ * The version is a SHA-256 prefix of the snapshot without generatedAt and the current stats' fetchedAt and
+ * lastUpdated (which every nightly refresh bumps), so publishing unchanged data writes nothing.
+ * Every file goes to a temp file in the same directory and is renamed into place, and the manifest is renamed last,
+ * so readers never see a partial file or a manifest pointing at a missing one. The last keep-versions versions
+ * stay on disk for clients holding an older manifest. Brotli is skipped (with a warning) if its native library
+ * isn't available for this platform.
+ */
+@Component
+public class SnapshotPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotPublisher.class);
+
+    public static final String BASE_NAME = "stored-user-snapshot";
+    public static final String MANIFEST_NAME = "snapshot-manifest.json";
+
+    private static final int VERSION_LENGTH = 16;
+    // Refresh timestamps on currentStats: they change on every fetch even when the ratings don't
+    private static final List<String> VOLATILE_STATS_FIELDS = List.of("fetchedAt", "lastUpdated");
+    private static final Pattern VERSIONED_FILE =
+            Pattern.compile(Pattern.quote(BASE_NAME) + "\\.([0-9a-f]{" + VERSION_LENGTH + "})\\.json(\\.gz|\\.br)?");
+
+    private final SnapshotService snapshotService;
+    private final RatingWriteBuffer ratingWriteBuffer;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    // Null when publishing is disabled
+    private final Path directory;
+    private final int keepVersions;
+    private final int brotliQuality;
+
+    // Scheduled and on-demand publishes don't interleave their writes
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    public SnapshotPublisher(
+            SnapshotService snapshotService,
+            RatingWriteBuffer ratingWriteBuffer,
+            ObjectMapper objectMapper,
+            @Value("${chess.snapshot.publish.directory:}") String directory,
+            @Value("${chess.snapshot.publish.keep-versions:3}") int keepVersions,
+            @Value("${chess.snapshot.publish.brotli-quality:11}") int brotliQuality) {
+        this.snapshotService = snapshotService;
+        this.ratingWriteBuffer = ratingWriteBuffer;
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.directory = directory.isBlank() ? null : Path.of(directory).toAbsolutePath();
+        this.keepVersions = Math.max(1, keepVersions);
+        this.brotliQuality = brotliQuality;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Publish the current snapshot if it differs from the published one
+     * @return the manifest, with "changed" telling whether new files were written
+     * @throws IllegalStateException if no directory is configured
+     */
+    public Map<String, Object> publish() throws IOException {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Snapshot publishing is disabled (set chess.snapshot.publish.directory)");
+        }
+        publishLock.lock();
+        try {
+            // Stats and ratings from the update that triggered this may still be buffered
+            ratingWriteBuffer.flush();
+            Files.createDirectories(directory);
+
+            // From the primary: a replica may not have the rows just flushed yet
+            Map<String, Object> snapshot = snapshotService.buildContentFromPrimary();
+            String sha256 = contentHash(snapshot);
+            String version = sha256.substring(0, VERSION_LENGTH);
+
+            Map<String, Object> published = readManifest();
+            if (published != null && version.equals(published.get("version"))
+                    && Files.exists(directory.resolve(versionedName(version, ".json")))) {
+                logger.info("Snapshot unchanged (version {}), nothing published", version);
+                published.put("changed", false);
+                return published;
+            }
+
+            long start = System.currentTimeMillis();
+            snapshot.put("generatedAt", start);
+            byte[] json = writer.writeValueAsBytes(snapshot);
+            byte[] gzip = gzip(json);
+            byte[] brotli = brotli(json);
+
+            Map<String, Object> files = new LinkedHashMap<>();
+            files.put("json", write(version, ".json", json));
+            files.put("gzip", write(version, ".json.gz", gzip));
+            if (brotli != null) {
+                files.put("br", write(version, ".json.br", brotli));
+            }
+
+            Map<String, Object> manifest = new LinkedHashMap<>();
+            manifest.put("version", version);
+            manifest.put("sha256", sha256);
+            manifest.put("username", snapshotService.getUsername());
+            manifest.put("generatedAt", start);
+            manifest.put("records", ((List<?>) snapshot.get("historicalData")).size());
+            manifest.put("files", files);
+            writeAtomically(directory.resolve(MANIFEST_NAME), writer.writeValueAsBytes(manifest));
+
+            prune(version);
+            logger.info("Published snapshot version {} to {}: {} bytes, {} gzip, {} brotli in {}ms",
+                    version, directory, json.length, gzip.length, brotli != null ? brotli.length : "no",
+                    System.currentTimeMillis() - start);
+            manifest.put("changed", true);
+            return manifest;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * SHA-256 of the snapshot without the volatile currentStats fields
+     */
+    private String contentHash(Map<String, Object> snapshot) throws IOException {
+        JsonNode content = objectMapper.valueToTree(snapshot);
+        if (content.get("currentStats") instanceof ObjectNode currentStats) {
+            currentStats.remove(VOLATILE_STATS_FIELDS);
+        }
+        return sha256(writer.writeValueAsBytes(content));
+    }
+
+    /**
+     * Write the versioned file and the unversioned alias the frontend loads by default
+     */
+    private Map<String, Object> write(String version, String suffix, byte[] bytes) throws IOException {
+        String name = versionedName(version, suffix);
+        writeAtomically(directory.resolve(name), bytes);
+        writeAtomically(directory.resolve(BASE_NAME + suffix), bytes);
+        Map<String, Object> file = new LinkedHashMap<>();
+        file.put("path", name);
+        file.put("bytes", bytes.length);
+        return file;
+    }
+
+    private void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Path temp = Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+        try {
+            // Temp files are created owner-only; the files are meant to be served
+            if (Files.getFileStore(temp).supportsFileAttributeView("posix")) {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-r--r--"));
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                logger.warn("Atomic rename not supported in {}, replacing {} non-atomically", directory, target.getFileName());
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Delete versioned files other than the newest keep-versions versions (the current one always stays)
+     */
+    private void prune(String current) throws IOException {
+        Map<String, List<Path>> byVersion = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                Matcher matcher = VERSIONED_FILE.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    byVersion.computeIfAbsent(matcher.group(1), v -> new ArrayList<>()).add(path);
+                }
+            });
+        }
+        byVersion.remove(current);
+
+        List<String> older = new ArrayList<>(byVersion.keySet());
+        older.sort(Comparator.comparingLong((String v) -> lastModified(directory.resolve(versionedName(v, ".json"))))
+                .reversed());
+        for (String version : older.subList(Math.min(keepVersions - 1, older.size()), older.size())) {
+            for (Path path : byVersion.get(version)) {
+                Files.deleteIfExists(path);
+            }
+            logger.debug("Removed snapshot version {}", version);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readManifest() {
+        Path manifest = directory.resolve(MANIFEST_NAME);
+        if (!Files.exists(manifest)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(manifest.toFile(), LinkedHashMap.class);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable {}: {}", manifest, e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] brotli(byte[] json) throws IOException {
+        if (!Brotli4jLoader.isAvailable()) {
+            logger.warn("Brotli unavailable, publishing without .br: {}", Brotli4jLoader.getUnavailabilityCause().toString());
+            return null;
+        }
+        return Encoder.compress(json, new Encoder.Parameters().setQuality(brotliQuality).setMode(Encoder.Mode.TEXT));
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(json);
+        }
+        return out.toByteArray();
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String versionedName(String version, String suffix) {
+        return BASE_NAME + "." + version + suffix;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.model.ChessDailyRating;
+import com.bdvitz.codingstats.model.ChessStat;
+import com.bdvitz.codingstats.repository.ChessDailyRatingRepository;
+import com.bdvitz.codingstats.repository.ChessStatRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the stored user's snapshot (current stats and history since June 9, 2020) that the
+ * frontend falls back to while the server is asleep. Served by /api/snapshot/generate and
+ * written to disk by SnapshotPublisher.
+ */
+@Service
+public class SnapshotService {
+
+    public static final LocalDate HISTORY_START = LocalDate.of(2020, 6, 9);
+
+    private final ChessStatRepository chessStatRepository;
+    private final ChessDailyRatingRepository chessDailyRatingRepository;
+    private final PlayerRegistry playerRegistry;
+    private final ReadOnlyTransactions readOnlyTransactions;
+
+    @Value("${chess.username}")
+    private String chessUsername;
+
+    public SnapshotService(
+            ChessStatRepository chessStatRepository,
+            ChessDailyRatingRepository chessDailyRatingRepository,
+            PlayerRegistry playerRegistry,
+            ReadOnlyTransactions readOnlyTransactions) {
+        this.chessStatRepository = chessStatRepository;
+        this.chessDailyRatingRepository = chessDailyRatingRepository;
+        this.playerRegistry = playerRegistry;
+        this.readOnlyTransactions = readOnlyTransactions;
+    }
+
+    public String getUsername() {
+        return chessUsername;
+    }
+
+    /**
+     * Snapshot without generatedAt, in a fixed key order so equal data serializes to equal bytes:
+     * {"username", "currentStats", "historicalData"}. Read from the read pool, which may lag the primary.
+     */
+    public Map<String, Object> buildContent() {
+        return readOnlyTransactions.execute(this::readContent);
+    }
+
+    /**
+     * Same as buildContent, read from the primary so writes flushed just before are included
+     * (SnapshotPublisher publishes right after the nightly update's flush)
+     */
+    public Map<String, Object> buildContentFromPrimary() {
+        return readContent();
+    }
+
+    private Map<String, Object> readContent() {
+        ChessStat currentStats = chessStatRepository.findByUsername(chessUsername).orElse(null);
+
+        LocalDate endDate = LocalDate.now();
+        List<ChessDailyRating> historicalData = playerRegistry.findId(chessUsername)
+                .map(playerId -> chessDailyRatingRepository.findByPlayerIdAndDateBetween(playerId, HISTORY_START, endDate))
+                .orElseGet(List::of);
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("username", chessUsername);
+        snapshot.put("currentStats", currentStats);
+        snapshot.put("historicalData", historicalData);
+        return snapshot;
+    }
+
+    /**
+     * Snapshot as served by /api/snapshot/generate: the content plus generatedAt (epoch millis)
+     */
+    public Map<String, Object> generate() {
+        Map<String, Object> snapshot = buildContent();
+        snapshot.put("generatedAt", System.currentTimeMillis());
+        return snapshot;
+    }
+}
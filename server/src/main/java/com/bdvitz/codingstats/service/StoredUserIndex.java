@@ -0,0 +1,119 @@
+package com.bdvitz.codingstats.service;
+
+import com.bdvitz.codingstats.event.ChessStatUpdatedEvent;
+import com.bdvitz.codingstats.event.DailyRatingsUpdatedEvent;
+import com.bdvitz.codingstats.event.RemoteDataChangedEvent;
+import com.bdvitz.codingstats.model.ChessStat;
+import com.bdvitz.codingstats.model.Player;
+import com.bdvitz.codingstats.repository.ChessStatRepository;
+import com.bdvitz.codingstats.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Usernames with stored current stats and with stored rating history, held in memory so request
+ * admission can tell stored users from guests without touching the database. Filled in the
+ * background every chess.admission.stored-users-refresh-ms and as writes from this or another
+ * instance are announced. Pending write-behind entries count as stored, as they do for reads.
+ * Stored users are never deleted by the app, so the sets only grow.
+ *
+ * Until the first load completes nobody is reported as a guest.
+ */
+@Component
+@Lazy(false)
+public class StoredUserIndex implements MemoryAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoredUserIndex.class);
+    // Rough heap per username across both sets
+    private static final long USER_BYTES = 120;
+
+    private final ChessStatRepository chessStatRepository;
+    private final PlayerRepository playerRepository;
+    private final RatingWriteBuffer ratingWriteBuffer;
+    private final ReadOnlyTransactions readOnlyTransactions;
+
+    // Usernames as stored in chess_stats, which getCurrentStats looks up as given
+    private final Set<String> withStats = ConcurrentHashMap.newKeySet();
+    // Canonical names of registered players (players are registered when their first ratings are written)
+    private final Set<String> withHistory = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+
+    public StoredUserIndex(
+            ChessStatRepository chessStatRepository,
+            PlayerRepository playerRepository,
+            RatingWriteBuffer ratingWriteBuffer,
+            ReadOnlyTransactions readOnlyTransactions) {
+        this.chessStatRepository = chessStatRepository;
+        this.playerRepository = playerRepository;
+        this.ratingWriteBuffer = ratingWriteBuffer;
+        this.readOnlyTransactions = readOnlyTransactions;
+    }
+
+    /**
+     * Whether getCurrentStats answers this user from stored or pending stats rather than Chess.com
+     */
+    public boolean hasStoredStats(String username) {
+        return !loaded || withStats.contains(username) || ratingWriteBuffer.getPendingStats(username).isPresent();
+    }
+
+    /**
+     * Whether getMonthHistory answers this user from stored or pending ratings rather than Chess.com
+     */
+    public boolean hasStoredHistory(String username) {
+        return !loaded || withHistory.contains(Player.canonicalName(username))
+                || ratingWriteBuffer.hasPendingRatings(username);
+    }
+
+    /**
+     * Add the users stored in the database, e.g. by an instance whose notification was missed.
+     * Added to rather than replaced, so a lagging read replica can't drop a user announced meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${chess.admission.stored-users-refresh-ms:60000}")
+    public void refresh() {
+        try {
+            readOnlyTransactions.execute(() -> {
+                chessStatRepository.findAll().stream().map(ChessStat::getUsername).forEach(withStats::add);
+                playerRepository.findAll().stream().map(Player::getUsername).forEach(withHistory::add);
+                return null;
+            });
+            if (!loaded) {
+                loaded = true;
+                logger.info("Loaded stored users: {} with stats, {} with history", withStats.size(), withHistory.size());
+            }
+        } catch (RuntimeException e) {
+            // The next refresh tries again
+            logger.warn("Failed to reload stored users: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onChessStatUpdated(ChessStatUpdatedEvent event) {
+        withStats.add(event.getUsername());
+    }
+
+    @EventListener
+    public void onDailyRatingsUpdated(DailyRatingsUpdatedEvent event) {
+        withHistory.add(Player.canonicalName(event.getUsername()));
+    }
+
+    @EventListener
+    public void onRemoteDataChanged(RemoteDataChangedEvent event) {
+        if (event.getType() == RemoteDataChangedEvent.Type.STATS) {
+            withStats.add(event.getUsername());
+        } else {
+            withHistory.add(Player.canonicalName(event.getUsername()));
+        }
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return (long) (withStats.size() + withHistory.size()) * USER_BYTES;
+    }
+}
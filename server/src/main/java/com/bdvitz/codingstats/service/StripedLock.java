@@ -0,0 +1,34 @@
+package com.bdvitz.codingstats.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks picked by key hash: the same key always maps to the same lock, so work on one key
+ * is serialized, while different keys share a lock only on a hash collision (about 1 in stripes).
+ * Unlike a lock per key, nothing is allocated or cleaned up per key.
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] stripes;
+
+    /**
+     * @param stripes number of locks, rounded up to a power of two
+     */
+    public StripedLock(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock get(Object key) {
+        int hash = key.hashCode();
+        // Spread the high bits, as HashMap does, before masking
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
@@ -0,0 +1,11 @@
+package com.bdvitz.codingstats.service;
+
+/**
+ * Classes of Chess.com endpoints, each guarded by its own circuit breaker
+ */
+public enum UpstreamEndpoint {
+    PROFILE,
+    STATS,
+    ARCHIVES,
+    GAMES
+}
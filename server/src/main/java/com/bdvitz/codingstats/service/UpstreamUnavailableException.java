@@ -0,0 +1,27 @@
+package com.bdvitz.codingstats.service;
+
+/**
+ * Thrown when Chess.com cannot be reached: network error, timeout, 5xx, or an open circuit breaker
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    private final UpstreamEndpoint endpoint;
+    private final boolean circuitOpen;
+
+    public UpstreamUnavailableException(UpstreamEndpoint endpoint, boolean circuitOpen, String message, Throwable cause) {
+        super(message, cause);
+        this.endpoint = endpoint;
+        this.circuitOpen = circuitOpen;
+    }
+
+    public UpstreamEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * True if the call was rejected without contacting Chess.com
+     */
+    public boolean isCircuitOpen() {
+        return circuitOpen;
+    }
+}
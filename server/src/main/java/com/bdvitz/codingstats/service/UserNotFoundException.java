@@ -0,0 +1,18 @@
+package com.bdvitz.codingstats.service;
+
+/**
+ * Thrown when Chess.com reports that a username does not exist (HTTP 404)
+ */
+public class UserNotFoundException extends RuntimeException {
+
+    private final String username;
+
+    public UserNotFoundException(String username) {
+        super("Chess.com user not found: " + username);
+        this.username = username;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+}
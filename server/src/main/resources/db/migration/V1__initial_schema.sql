@@ -0,0 +1,29 @@
+-- Schema as previously created by Hibernate (ddl-auto=update).
+-- Idempotent so it also applies cleanly to databases created before Flyway was introduced.
+
+CREATE TABLE IF NOT EXISTS chess_stats (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username      VARCHAR(255) NOT NULL UNIQUE,
+    rapid_rating  INTEGER,
+    blitz_rating  INTEGER,
+    bullet_rating INTEGER,
+    puzzle_rating INTEGER,
+    total_games   INTEGER,
+    wins          INTEGER,
+    losses        INTEGER,
+    draws         INTEGER,
+    last_updated  DATE,
+    fetched_at    TIMESTAMP(6) WITH TIME ZONE
+);
+
+ALTER TABLE chess_stats ADD COLUMN IF NOT EXISTS fetched_at TIMESTAMP(6) WITH TIME ZONE;
+
+CREATE TABLE IF NOT EXISTS daily_ratings (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username      VARCHAR(255) NOT NULL,
+    date          DATE NOT NULL,
+    rapid_rating  INTEGER,
+    blitz_rating  INTEGER,
+    bullet_rating INTEGER,
+    UNIQUE (username, date)
+);
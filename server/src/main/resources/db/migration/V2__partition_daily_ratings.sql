@@ -0,0 +1,45 @@
+-- Hash-partition daily_ratings by username.
+--
+-- Every repository query filters on username = ?, so the planner prunes to a single
+-- partition; each partition stays small enough for cheap vacuum and index scans.
+-- Existing rows are copied day-major (ORDER BY date, username), the order the nightly job
+-- appends them in, so heap order within each partition follows date and a BRIN index on
+-- date serves cross-user time range scans at a fraction of a B-tree's size.
+--
+-- A partitioned table's primary key and unique constraints must include the partition
+-- key, so the primary key becomes (id, username); id stays unique via the identity.
+
+CREATE TABLE daily_ratings_partitioned (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    username      VARCHAR(255) NOT NULL,
+    date          DATE NOT NULL,
+    rapid_rating  INTEGER,
+    blitz_rating  INTEGER,
+    bullet_rating INTEGER,
+    PRIMARY KEY (id, username),
+    UNIQUE (username, date)
+) PARTITION BY HASH (username);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format(
+            'CREATE TABLE daily_ratings_p%s PARTITION OF daily_ratings_partitioned FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+            lpad(i::text, 2, '0'), i);
+    END LOOP;
+END $$;
+
+INSERT INTO daily_ratings_partitioned (id, username, date, rapid_rating, blitz_rating, bullet_rating)
+SELECT id, username, date, rapid_rating, blitz_rating, bullet_rating
+FROM daily_ratings
+ORDER BY date, username;
+
+DROP TABLE daily_ratings;
+ALTER TABLE daily_ratings_partitioned RENAME TO daily_ratings;
+
+SELECT setval(pg_get_serial_sequence('daily_ratings', 'id'), COALESCE(MAX(id), 0) + 1, false)
+FROM daily_ratings;
+
+CREATE INDEX daily_ratings_date_brin ON daily_ratings USING brin (date) WITH (pages_per_range = 32);
+
+ANALYZE daily_ratings;
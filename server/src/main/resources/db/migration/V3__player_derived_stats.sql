@@ -0,0 +1,26 @@
+-- Derived statistics per user, maintained incrementally from daily_ratings writes
+
+CREATE TABLE player_derived_stats (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username           VARCHAR(255) NOT NULL UNIQUE,
+    days_played        INTEGER NOT NULL DEFAULT 0,
+    first_date         DATE,
+    last_date          DATE,
+    current_streak     INTEGER NOT NULL DEFAULT 0,
+    longest_streak     INTEGER NOT NULL DEFAULT 0,
+    longest_streak_end DATE,
+    rapid_peak         INTEGER,
+    rapid_peak_date    DATE,
+    rapid_low          INTEGER,
+    rapid_low_date     DATE,
+    blitz_peak         INTEGER,
+    blitz_peak_date    DATE,
+    blitz_low          INTEGER,
+    blitz_low_date     DATE,
+    bullet_peak        INTEGER,
+    bullet_peak_date   DATE,
+    bullet_low         INTEGER,
+    bullet_low_date    DATE,
+    yearly             TEXT,
+    updated_at         TIMESTAMP(6) WITH TIME ZONE
+);
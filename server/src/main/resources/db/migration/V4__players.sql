@@ -0,0 +1,71 @@
+-- Replace the username string on every daily_ratings row with an integer player id.
+--
+-- players holds one row per stored user with the canonical (lowercased) username;
+-- Chess.com usernames are case-insensitive, so 'Hikaru' and 'hikaru' become one player.
+-- daily_ratings is rebuilt partitioned by hash of player_id, with the unique
+-- (player_id, date) index replacing (username, date).
+
+CREATE TABLE players (
+    id         INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username   VARCHAR(255) NOT NULL UNIQUE,
+    created_at TIMESTAMP(6) WITH TIME ZONE
+);
+
+INSERT INTO players (username, created_at)
+SELECT DISTINCT lower(username), now()
+FROM daily_ratings
+ORDER BY 1;
+
+CREATE TABLE daily_ratings_by_player (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    player_id     INTEGER NOT NULL REFERENCES players (id),
+    date          DATE NOT NULL,
+    rapid_rating  INTEGER,
+    blitz_rating  INTEGER,
+    bullet_rating INTEGER,
+    PRIMARY KEY (id, player_id),
+    UNIQUE (player_id, date)
+) PARTITION BY HASH (player_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format(
+            'CREATE TABLE daily_ratings_by_player_p%s PARTITION OF daily_ratings_by_player FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+            lpad(i::text, 2, '0'), i);
+    END LOOP;
+END $$;
+
+-- Rows that only differed by username case collapse to the most recently inserted one.
+-- Copied day-major, as in V2, so heap order follows date for the BRIN index below.
+INSERT INTO daily_ratings_by_player (id, player_id, date, rapid_rating, blitz_rating, bullet_rating)
+SELECT DISTINCT ON (d.date, p.id) d.id, p.id, d.date, d.rapid_rating, d.blitz_rating, d.bullet_rating
+FROM daily_ratings d
+JOIN players p ON p.username = lower(d.username)
+ORDER BY d.date, p.id, d.id DESC;
+
+DROP TABLE daily_ratings;
+ALTER TABLE daily_ratings_by_player RENAME TO daily_ratings;
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('ALTER TABLE daily_ratings_by_player_p%1$s RENAME TO daily_ratings_p%1$s', lpad(i::text, 2, '0'));
+    END LOOP;
+END $$;
+
+SELECT setval(pg_get_serial_sequence('daily_ratings', 'id'), COALESCE(MAX(id), 0) + 1, false)
+FROM daily_ratings;
+
+CREATE INDEX daily_ratings_date_brin ON daily_ratings USING brin (date) WITH (pages_per_range = 32);
+
+-- Derived stats are looked up by canonical username; records for names that only differed
+-- by case are dropped and rebuilt from the merged history on the next read
+DELETE FROM player_derived_stats
+WHERE lower(username) IN (
+    SELECT lower(username) FROM player_derived_stats GROUP BY lower(username) HAVING count(*) > 1
+);
+UPDATE player_derived_stats SET username = lower(username) WHERE username <> lower(username);
+
+ANALYZE players;
+ANALYZE daily_ratings;
@@ -0,0 +1,125 @@
+package com.bdvitz.codingstats.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * fetchAndUpdateMonthHistory from many threads: refreshes of one (user, month), in any username case,
+ * never fetch from Chess.com at the same time, while different users and months still run in parallel.
+ */
+class ChessHistoryServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int USERS = 8;
+    private static final int MONTHS = 6;
+    private static final int ROUNDS = 10;
+    private static final int YEAR = 2024;
+
+    private final Map<String, AtomicInteger> inFlightByKey = new ConcurrentHashMap<>();
+    private final AtomicInteger maxInFlightPerKey = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    private ChessHistoryService chessHistoryService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        ChessComApiService chessComApiService = mock(ChessComApiService.class);
+        when(chessComApiService.fetchMonthlyGames(anyString(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> fetchMonthlyGames(
+                        invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+
+        // Unknown archives (Optional.empty) are fetched; queued ratings go nowhere
+        chessHistoryService = new ChessHistoryService(chessComApiService, mock(ArchiveMonthIndex.class), null,
+                mock(RatingWriteBuffer.class), null, null, 500, 5000, 64);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void refreshesOfTheSameUserAndMonthNeverFetchConcurrently() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> refreshes = new ArrayList<>();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int user = 0; user < USERS; user++) {
+                String username = switch (round % 3) {
+                    case 0 -> "Player" + user;
+                    case 1 -> "player" + user;
+                    default -> "PLAYER" + user;
+                };
+                for (int month = 1; month <= MONTHS; month++) {
+                    int refreshMonth = month;
+                    refreshes.add(executor.submit(() -> {
+                        start.await();
+                        return chessHistoryService.fetchAndUpdateMonthHistory(username, YEAR, refreshMonth);
+                    }));
+                }
+            }
+        }
+        start.countDown();
+        for (Future<?> refresh : refreshes) {
+            assertThat(refresh.get(30, TimeUnit.SECONDS)).asList().hasSize(1);
+        }
+
+        assertThat(fetches).hasValue(ROUNDS * USERS * MONTHS);
+        assertThat(maxInFlightPerKey).hasValue(1);
+        // Different users and months aren't serialized behind one lock
+        assertThat(maxInFlight.get()).isGreaterThan(1);
+    }
+
+    /**
+     * One blitz game on the 5th of the month, after holding the "request" open long enough to overlap
+     */
+    private JsonNode fetchMonthlyGames(String username, int year, int month) throws InterruptedException {
+        fetches.incrementAndGet();
+        AtomicInteger forKey = inFlightByKey.computeIfAbsent(username.toLowerCase() + ":" + year + "-" + month,
+                key -> new AtomicInteger());
+        maxInFlightPerKey.accumulateAndGet(forKey.incrementAndGet(), Math::max);
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(20);
+        } finally {
+            inFlight.decrementAndGet();
+            forKey.decrementAndGet();
+        }
+
+        ObjectNode root = JsonNodeFactory.instance.objectNode();
+        ObjectNode game = root.putArray("games").addObject();
+        game.put("rules", "chess");
+        game.put("rated", true);
+        game.put("time_class", "blitz");
+        game.put("end_time", LocalDate.of(year, month, 5).atStartOfDay(ZoneOffset.UTC).toEpochSecond());
+        game.putObject("white").put("username", username).put("rating", 1500);
+        game.putObject("black").put("username", "opponent").put("rating", 1400);
+        return root;
+    }
+}